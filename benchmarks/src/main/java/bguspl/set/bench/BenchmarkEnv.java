@@ -0,0 +1,47 @@
+package bguspl.set.bench;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates headless game environments for the benchmarks, with logging off.
+ */
+final class BenchmarkEnv {
+
+    private BenchmarkEnv() {
+    }
+
+    /**
+     * @param featureCount - the number of features on the cards.
+     * @param featureSize  - the number of choices for each feature.
+     * @param tableSize    - the number of slots on the table (a single row).
+     * @param players      - the number of (computer) players.
+     * @return - the environment.
+     */
+    static Env create(int featureCount, int featureSize, int tableSize, int players) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.OFF);
+
+        Properties properties = new Properties();
+        properties.setProperty("LogLevel", "OFF");
+        properties.setProperty("Headless", "True");
+        properties.setProperty("FeatureCount", Integer.toString(featureCount));
+        properties.setProperty("FeatureSize", Integer.toString(featureSize));
+        properties.setProperty("Rows", "1");
+        properties.setProperty("Columns", Integer.toString(tableSize));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        Config config = new Config(logger, properties);
+
+        Util util = new UtilImpl(config);
+        return new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+    }
+}
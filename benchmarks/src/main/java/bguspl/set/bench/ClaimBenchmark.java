@@ -0,0 +1,64 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import bguspl.set.ex.Claim;
+import bguspl.set.ex.ClaimArbiter;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claim verification (ClaimArbiter.arbitrate, the read-only part of Dealer.checkSets) for batches of claims made
+ * at once, some of which are sets and many of which overlap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimBenchmark {
+
+    @Param({"1", "4", "16", "64", "256"})
+    public int batchSize;
+
+    @Param({"12", "48"})
+    public int tableSize;
+
+    private ClaimArbiter arbiter;
+    private List<Claim> claims;
+
+    @Setup
+    public void setup() {
+        Env env = BenchmarkEnv.create(4, 3, tableSize, batchSize);
+        Table table = new Table(env);
+        for (int slot = 0; slot < tableSize; slot++)
+            table.placeCard(slot, slot);
+        arbiter = new ClaimArbiter(env, table);
+
+        //every other player claims a set on the table, the rest claim random cards
+        int[] cards = new int[tableSize];
+        for (int slot = 0; slot < tableSize; slot++) cards[slot] = slot;
+        List<int[]> sets = env.util.findSets(cards, Integer.MAX_VALUE);
+        Random random = new Random(42);
+        claims = new ArrayList<>();
+        for (int player = 0; player < batchSize; player++) {
+            if (player % 2 == 0 && !sets.isEmpty())
+                for (int card : sets.get(random.nextInt(sets.size())))
+                    table.placeToken(player, card);//card i is in slot i
+            else
+                while (table.claim(player) == null)
+                    table.placeToken(player, random.nextInt(tableSize));
+            claims.add(table.claim(player));
+        }
+    }
+
+    @Benchmark
+    public ClaimArbiter.Outcome[] arbitrate() {
+        return arbiter.arbitrate(new ArrayList<>(claims));
+    }
+}
@@ -0,0 +1,79 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import bguspl.set.ex.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token placement and removal on a full table (Table.placeToken and Table.removeToken), by a single player and by
+ * many players at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    /**
+     * The number of players, an upper bound for the number of benchmark threads.
+     */
+    private static final int PLAYERS = 128;
+
+    @Param({"12", "48"})
+    public int tableSize;
+
+    private Table table;
+    private final AtomicInteger nextPlayer = new AtomicInteger();
+
+    /**
+     * The player id and table cursor of a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class PlayerState {
+        int player;
+        int slot;
+
+        @Setup
+        public void setup(TableBenchmark benchmark) {
+            player = benchmark.nextPlayer.getAndIncrement() % PLAYERS;
+            slot = player % benchmark.tableSize;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Env env = BenchmarkEnv.create(4, 3, tableSize, PLAYERS);
+        table = new Table(env);
+        for (int slot = 0; slot < tableSize; slot++)
+            table.placeCard(slot, slot);
+    }
+
+    private boolean toggleToken(PlayerState state) {
+        int slot = state.slot;
+        state.slot = slot + 1 == tableSize ? 0 : slot + 1;
+        return table.placeToken(state.player, slot) && table.removeToken(state.player, slot);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean placeAndRemoveToken(PlayerState state) {
+        return toggleToken(state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean placeAndRemoveToken4Threads(PlayerState state) {
+        return toggleToken(state);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean placeAndRemoveTokenAllThreads(PlayerState state) {
+        return toggleToken(state);
+    }
+}
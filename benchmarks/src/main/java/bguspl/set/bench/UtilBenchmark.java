@@ -0,0 +1,81 @@
+package bguspl.set.bench;
+
+import bguspl.set.Env;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set testing and finding (UtilImpl.testSet and UtilImpl.findSets) over deck shapes and table sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int featureCount;
+
+    @Param({"3", "4"})
+    public int featureSize;
+
+    @Param({"12", "48"})
+    public int tableSize;
+
+    private Env env;
+    private int[] table;
+    private int[] legalSet;
+    private int[] illegalSet;
+
+    @Setup
+    public void setup() {
+        env = BenchmarkEnv.create(featureCount, featureSize, tableSize, 1);
+        Random random = new Random(42);
+        int[] deck = new int[env.config.deckSize];
+        for (int i = 0; i < deck.length; i++) deck[i] = i;
+        for (int i = deck.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1), card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
+        table = Arrays.copyOf(deck, Math.min(tableSize, deck.length));
+
+        legalSet = env.util.findSets(deck, 1).get(0);
+        illegalSet = legalSet.clone();
+        for (int card = 0; env.util.testSet(illegalSet); card++)
+            illegalSet[illegalSet.length - 1] = card;
+    }
+
+    @Benchmark
+    public boolean testLegalSet() {
+        return env.util.testSet(legalSet);
+    }
+
+    @Benchmark
+    public boolean testIllegalSet() {
+        return env.util.testSet(illegalSet);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSetsOnTable() {
+        return env.util.findSets(table, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSetOnTable() {
+        return env.util.findSets(table, 1);
+    }
+
+    @Benchmark
+    public void completeSet(Blackhole blackhole) {
+        for (int i = 1; i < table.length; i++)
+            blackhole.consume(env.util.completeSet(table[0], table[i]));
+    }
+}
@@ -0,0 +1,143 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that hands records to a background writer thread through a bounded lock-free buffer, so logging
+ * threads never wait on formatting or on the log file. Records are formatted by the writer thread; when the
+ * buffer is full, records are dropped and counted.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The number of records the buffer holds (a power of 2).
+     */
+    private static final int CAPACITY = 8192;
+
+    /**
+     * The longest time the writer thread sleeps while the buffer is empty (in nanoseconds).
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The handler the records are written to (by the writer thread only).
+     */
+    private final Handler target;
+
+    private final RingBuffer<LogRecord> records = new RingBuffer<>(CAPACITY);
+
+    /**
+     * The number of records dropped because the buffer was full.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The number of records added to the buffer.
+     */
+    private final AtomicLong enqueued = new AtomicLong();
+
+    /**
+     * The number of records the writer thread passed to the target handler (written by the writer thread only).
+     */
+    private volatile long written;
+
+    /**
+     * The number of dropped records already reported in the log (used by the writer thread only).
+     */
+    private long reported;
+
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param target - the handler to write the records to.
+     */
+    public AsyncLogHandler(Handler target) {
+        this.target = target;
+        writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        if (records.offer(record)) enqueued.incrementAndGet();
+        else dropped.incrementAndGet();
+    }
+
+    /**
+     * @return - the number of records dropped because the writer thread fell a whole buffer behind.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * The writer thread: writes the buffered records to the target handler in order.
+     */
+    private void write() {
+        while (!closed || !records.isEmpty()) {
+            LogRecord record = records.poll();
+            if (record == null) {
+                reportDropped();
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            }
+            written++;
+        }
+        reportDropped();
+    }
+
+    private void reportDropped() {
+        long count = dropped.get();
+        if (count == reported) return;
+        target.publish(new LogRecord(Level.WARNING, "dropped " + (count - reported) + " log records"));
+        reported = count;
+    }
+
+    /**
+     * Waits until the writer thread passed the records published so far to the target handler (an empty buffer is
+     * not enough: the writer may still hold the last record), then flushes the target handler.
+     */
+    @Override
+    public void flush() {
+        long published = enqueued.get();
+        while (written < published && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(IDLE_NANOS / 10);
+        }
+        target.flush();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    @Override
+    public synchronized void setFormatter(Formatter formatter) {
+        super.setFormatter(formatter);
+        target.setFormatter(formatter);
+    }
+}
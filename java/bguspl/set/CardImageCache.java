@@ -0,0 +1,133 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static bguspl.set.UserInterfaceSwing.intInBaseToPaddedString;
+
+/**
+ * Card images scaled to the cell size, loaded on first use and kept in a bounded least-recently-used cache.
+ * One cache is shared by all the game windows in the JVM that display the same cards at the same size.
+ */
+public class CardImageCache {
+
+    /**
+     * The shared caches, by card naming and cell size.
+     */
+    private static final Map<String, CardImageCache> shared = new HashMap<>();
+
+    private final int featureCount;
+    private final int featureSize;
+    private final int deckSize;
+    private final int width;
+    private final int height;
+
+    /**
+     * The maximal number of card images kept.
+     */
+    private final int capacity;
+
+    /**
+     * The loaded card images, by card id, in least-recently-used order. Guarded by this.
+     */
+    private final LinkedHashMap<Integer, Image> images;
+
+    /**
+     * The image of an empty cell.
+     */
+    private final Image emptyCard;
+
+    private CardImageCache(Config config) {
+        this.featureCount = config.featureCount;
+        this.featureSize = config.featureSize;
+        this.deckSize = config.deckSize;
+        this.width = config.cellWidth;
+        this.height = config.cellHeight;
+        this.capacity = config.imageCacheSize > 0 ? config.imageCacheSize : config.deckSize;
+        this.images = new LinkedHashMap<Integer, Image>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.emptyCard = load("cards/empty_card.png");
+    }
+
+    /**
+     * Returns the cache shared by the windows displaying the cards of a configuration, creating it if needed.
+     *
+     * @param config - the game configuration.
+     * @return - the shared cache.
+     */
+    public static synchronized CardImageCache shared(Config config) {
+        String key = config.featureCount + "x" + config.featureSize + "@" + config.cellWidth + "x" + config.cellHeight;
+        return shared.computeIfAbsent(key, k -> new CardImageCache(config));
+    }
+
+    /**
+     * @return - the image of an empty cell.
+     */
+    public Image emptyCard() {
+        return emptyCard;
+    }
+
+    /**
+     * Returns the image of a card, loading it if it is not cached.
+     *
+     * @param card - the card id.
+     * @return - the card image, scaled to the cell size.
+     */
+    public Image get(int card) {
+        synchronized (this) {
+            Image image = images.get(card);
+            if (image != null) return image;
+        }
+        //load outside the lock, so loading other cards is not blocked
+        Image image = load("cards/" + intInBaseToPaddedString(card, featureCount, featureSize) + ".png");
+        synchronized (this) {
+            Image loaded = images.putIfAbsent(card, image);
+            return loaded != null ? loaded : image;
+        }
+    }
+
+    /**
+     * Loads the first card images (up to the cache capacity) in parallel, in the background.
+     *
+     * @return - completes when the images are loaded.
+     */
+    public CompletableFuture<Void> preload() {
+        return CompletableFuture.runAsync(() -> IntStream.range(0, Math.min(deckSize, capacity)).parallel().forEach(this::get));
+    }
+
+    /**
+     * Reads an image resource and scales it to the cell size once, so painting a cell is a plain copy.
+     */
+    private Image load(String filename) {
+        URL imageResource = getClass().getClassLoader().getResource(filename);
+        if (imageResource == null)
+            throw new RuntimeException(new FileNotFoundException(filename));
+        BufferedImage image;
+        try {
+            image = ImageIO.read(imageResource);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (image.getWidth() == width && image.getHeight() == height) return image;
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+}
@@ -0,0 +1,30 @@
+package bguspl.set;
+
+/**
+ * An interface for the game's time source, so games can run in real time or in accelerated (virtual) time.
+ */
+public interface Clock {
+
+    /**
+     * Returns the current game time.
+     *
+     * @return - the current game time in milliseconds.
+     */
+    long currentTimeMillis();
+
+    /**
+     * Sleeps for the given amount of game time.
+     *
+     * @param millis - the game time to sleep in milliseconds.
+     * @throws InterruptedException - if the thread was interrupted while sleeping.
+     */
+    void sleep(long millis) throws InterruptedException;
+
+    /**
+     * Converts an amount of game time to the real time it takes (e.g. for timed waits on queues and locks).
+     *
+     * @param millis - the game time in milliseconds.
+     * @return - the real time in nanoseconds.
+     */
+    long toRealNanos(long millis);
+}
@@ -77,7 +77,12 @@ public class Config {
     public final long pointFreezeMillis;
 
     /**
-     * The number of milliseconds to delay before removing/placing a card on the table
+     * The number of milliseconds between two updates of a frozen player's remaining freeze time display
+     */
+    public final long freezeRefreshMillis;
+
+    /**
+     * The number of milliseconds to delay the display of each card removed/placed on the table
      */
     public final long tableDelayMillis;
 
@@ -86,6 +91,36 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * True iff the game runs without a user interface (e.g. batch simulations of computer players)
+     */
+    public final boolean headless;
+
+    /**
+     * The number of game milliseconds that pass in one real millisecond (1 for real time, more to simulate faster)
+     */
+    public final double simulationSpeed;
+
+    /**
+     * The strategy of the computer players (Random or SetFinding)
+     */
+    public final String computerStrategy;
+
+    /**
+     * The average number of milliseconds a set finding computer player takes to react to the table
+     */
+    public final long computerReactionMillis;
+
+    /**
+     * The kind of threads the dealer, players and computer players run on
+     */
+    public final ThreadModel threadModel;
+
+    /**
+     * The file to write the binary game journal to (empty for no journal; hosted games add ".(game id)")
+     */
+    public final String journalFile;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -117,6 +152,11 @@ public class Config {
      */
     public final int cellHeight;
 
+    /**
+     * The maximal number of card images kept in memory (0 for the whole deck)
+     */
+    public final int imageCacheSize;
+
     /**
      * The Width (in pixeks) of player name cell
      */
@@ -202,15 +242,28 @@ public class Config {
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
+        computerStrategy = properties.getProperty("ComputerStrategy", "Random").trim();
+        computerReactionMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionSeconds", "1")) * 1000.0);
 
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
+        freezeRefreshMillis = (long) (Double.parseDouble(properties.getProperty("FreezeRefreshSeconds", "0.25")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
+        // simulation settings
+        headless = Boolean.parseBoolean(properties.getProperty("Headless", "False"));
+        simulationSpeed = Double.parseDouble(properties.getProperty("SimulationSpeed", "1"));
+        if (simulationSpeed <= 0)
+            logger.severe("invalid simulation speed: " + simulationSpeed);
+
+        // threading settings
+        threadModel = ThreadModel.valueOf(properties.getProperty("ThreadModel", "Platform").trim().toUpperCase());
+        journalFile = properties.getProperty("JournalFile", "").trim();
+
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
         playerNames = new String[players];
@@ -221,6 +274,7 @@ public class Config {
         tableSize = rows * columns;
         cellWidth = Integer.parseInt(properties.getProperty("CellWidth", "258"));
         cellHeight = Integer.parseInt(properties.getProperty("CellHeight", "167"));
+        imageCacheSize = Integer.parseInt(properties.getProperty("ImageCacheSize", "0"));
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
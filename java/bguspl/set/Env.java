@@ -1,5 +1,6 @@
 package bguspl.set;
 
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 public class Env {
@@ -8,11 +9,31 @@ public class Env {
     public final Config config;
     public final UserInterface ui;
     public final Util util;
+    public final Clock clock;
+    public final ThreadFactory threadFactory;
+    public final GameMetrics metrics;
+    public final GameJournal journal;
 
     public Env(Logger logger, Config config, UserInterface ui, Util util) {
+        this(logger, config, ui, util, new SystemClock());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock) {
+        this(logger, config, ui, util, clock, Thread::new);
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, ThreadFactory threadFactory) {
+        this(logger, config, ui, util, clock, threadFactory, GameJournal.disabled());
+    }
+
+    public Env(Logger logger, Config config, UserInterface ui, Util util, Clock clock, ThreadFactory threadFactory, GameJournal journal) {
         this.logger = logger;
         this.config = config;
         this.ui = ui;
         this.util = util;
+        this.clock = clock;
+        this.threadFactory = threadFactory;
+        this.metrics = new GameMetrics();
+        this.journal = journal;
     }
 }
@@ -0,0 +1,127 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * A single game hosted by a GameHost: its own environment, table, dealer and players.
+ */
+public class Game {
+
+    /**
+     * The lifecycle of a game: created, then running (on its dealer thread), then terminated (ended or stopped).
+     */
+    public enum State {CREATED, RUNNING, TERMINATED}
+
+    /**
+     * The id of the game (unique within its host).
+     */
+    public final int id;
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * Game entities.
+     */
+    private final Dealer dealer;
+    private final Player[] players;
+
+    private final CompletableFuture<GameResult> result = new CompletableFuture<>();
+
+    private volatile State state = State.CREATED;
+
+    /**
+     * True iff the game was asked to terminate before it ended by itself.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a game without a user interface.
+     *
+     * @param id            - the id of the game.
+     * @param logger        - the logger of the host.
+     * @param config        - the game configuration.
+     * @param util          - the utilities for the configuration (may be shared by games with the same config).
+     * @param clock         - the game clock.
+     * @param threadFactory - the factory creating the player threads (the host creates the dealer thread with it).
+     */
+    Game(int id, Logger logger, Config config, Util util, Clock clock, ThreadFactory threadFactory) {
+        this.id = id;
+        UserInterface ui = new UserInterfaceDecorator(logger, util, null);
+        GameJournal journal = Main.openJournal(logger, config.journalFile.isEmpty() ? "" : config.journalFile + "." + id);
+        env = new Env(logger, config, ui, util, clock, threadFactory, journal);
+        players = new Player[config.players];
+        Table table = new Table(env);
+        dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, i < config.humanPlayers);
+    }
+
+    /**
+     * Runs the game to its end on the calling thread (the dealer thread of the game).
+     */
+    void run() {
+        synchronized (this) {
+            if (state != State.CREATED) return;
+            state = State.RUNNING;
+        }
+        long start = env.clock.currentTimeMillis();
+        env.metrics.register("game-" + id, env.logger);
+        try {
+            if (!stopped) dealer.run();
+            result.complete(collect(env.clock.currentTimeMillis() - start));
+        } catch (RuntimeException | Error e) {
+            dealer.terminate();
+            result.completeExceptionally(e);
+        } finally {
+            env.metrics.unregister();
+            Main.closeJournal(env.logger, env.journal);
+            state = State.TERMINATED;
+        }
+    }
+
+    private GameResult collect(long durationMillis) {
+        int[] scores = new int[players.length];
+        for (int i = 0; i < players.length; i++)
+            scores[i] = players[i].score();
+        return new GameResult(id, scores, dealer.winners(), durationMillis, stopped);
+    }
+
+    /**
+     * Stops the game (a game that did not start yet will not start).
+     */
+    public void terminate() {
+        stopped = true;
+        synchronized (this) {
+            if (state == State.CREATED) {
+                state = State.TERMINATED;
+                Main.closeJournal(env.logger, env.journal);
+                result.complete(collect(0));
+                return;
+            }
+        }
+        dealer.terminate();
+    }
+
+    /**
+     * @return - the current lifecycle state of the game.
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * @return - a future completed with the game result once the game is terminated.
+     */
+    public CompletableFuture<GameResult> result() {
+        return result;
+    }
+}
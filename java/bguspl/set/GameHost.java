@@ -0,0 +1,138 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * This class hosts many independent games in one JVM. Every started game runs at once on its own dealer thread;
+ * the dealers mostly wait for claims, so the number of games is bounded by memory rather than by cores.
+ */
+public class GameHost implements AutoCloseable {
+
+    /**
+     * The longest time close() waits for the dealer threads to end.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger;
+    private final ThreadFactory threads;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * The dealer threads of the started games that did not end yet.
+     */
+    private final Set<Thread> dealers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The games that were created and did not terminate yet.
+     */
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+
+    /**
+     * Utilities per configuration (they only depend on the card features, so games share them).
+     */
+    private final Map<Config, Util> utils = new ConcurrentHashMap<>();
+
+    /**
+     * @param logger  - the logger shared by all games.
+     * @param threads - the factory creating the dealer and player threads of all games (see ThreadModel).
+     */
+    public GameHost(Logger logger, ThreadFactory threads) {
+        this.logger = logger;
+        this.threads = threads;
+    }
+
+    /**
+     * Creates a headless game (it does not run until started).
+     *
+     * @param config - the game configuration.
+     * @return - the game.
+     */
+    public Game create(Config config) {
+        Util util = utils.computeIfAbsent(config, UtilImpl::new);
+        Clock clock = config.simulationSpeed > 0 && config.simulationSpeed != 1 ? new SimulationClock(config.simulationSpeed) : new SystemClock();
+        Game game = new Game(nextId.getAndIncrement(), logger, config, util, clock, threads);
+        games.put(game.id, game);
+        game.result().whenComplete((result, error) -> games.remove(game.id));
+        return game;
+    }
+
+    /**
+     * Starts a game on a new dealer thread.
+     *
+     * @param game - a game created by this host.
+     * @return - a future completed with the game result.
+     */
+    public CompletableFuture<GameResult> start(Game game) {
+        Thread dealer = threads.newThread(() -> {
+            try {
+                game.run();
+            } finally {
+                dealers.remove(Thread.currentThread());
+            }
+        });
+        dealer.setName("dealer-" + game.id);
+        dealers.add(dealer);
+        dealer.start();
+        return game.result();
+    }
+
+    /**
+     * @return - the games that were created and did not terminate yet.
+     */
+    public List<Game> games() {
+        return new ArrayList<>(games.values());
+    }
+
+    /**
+     * Terminates all the games and waits for their dealer threads to end.
+     */
+    @Override
+    public void close() {
+        games().forEach(Game::terminate);
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        try {
+            for (Thread dealer : new ArrayList<>(dealers))
+                dealer.join(Math.max(1, deadline - System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!dealers.isEmpty())
+            logger.severe("dealer threads did not terminate.");
+    }
+
+    /**
+     * Runs a batch of headless games with the configuration file and reports a summary.
+     *
+     * @param args - [the number of games].
+     */
+    public static void main(String[] args) throws Exception {
+        Logger logger = Main.initLogger();
+        Config config = new Config(logger, "config.properties");
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<GameResult>> results = new ArrayList<>();
+        try (GameHost host = new GameHost(logger, config.threadModel.factory(logger))) {
+            for (int i = 0; i < count; i++)
+                results.add(host.start(host.create(config)));
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        }
+
+        long[] wins = new long[config.players];
+        for (CompletableFuture<GameResult> result : results)
+            for (int winner : result.join().winners)
+                wins[winner]++;
+        System.out.println(count + " games in " + (System.currentTimeMillis() - start) + " ms");
+        for (int i = 0; i < wins.length; i++)
+            System.out.println(config.playerNames[i] + " won " + wins[i] + " games");
+    }
+}
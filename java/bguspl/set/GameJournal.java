@@ -0,0 +1,256 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * An append-only binary journal of the game events, written to a memory-mapped file in fixed-size records.
+ * Writers reserve record positions with a single atomic increment and never lock, except for allocating and
+ * mapping the next segment of the file once every SEGMENT_RECORDS records.
+ *
+ * <p>File layout (big endian): a HEADER_SIZE byte header - the magic "SETJRNL1", the format version (int), the
+ * record size (int), the journal start time (epoch milliseconds, long) and the number of records (long, written on
+ * close) - followed by RECORD_SIZE byte records:
+ * <pre>
+ *   0  long  time   - nanoseconds since the journal start
+ *   8  byte  type   - the record type (see the TYPE_ constants), written last (0 marks an unwritten record)
+ *   12 int   player - the player id (-1 if none)
+ *   16 int   slot   - the table slot (-1 if none)
+ *   20 int   card   - the card id (-1 if none)
+ *   24 long  value  - a type specific value (see the TYPE_ constants)
+ * </pre>
+ * The file grows a segment at a time, so it may end with unwritten (zero) records after the last counted one.
+ * If the file cannot grow (e.g. the disk is full), the failure is logged and the journal stops recording, so
+ * journaling never fails the game.
+ */
+public class GameJournal implements AutoCloseable {
+
+    public static final byte TYPE_CARD_PLACED = 1;
+    public static final byte TYPE_CARD_REMOVED = 2;
+    public static final byte TYPE_TOKEN_PLACED = 3;
+    public static final byte TYPE_TOKEN_REMOVED = 4;
+    /** A claim; value is the table version, card is the number of TYPE_CLAIM_CARD records that follow it. */
+    public static final byte TYPE_CLAIM = 5;
+    /** A claimed card (slot and card), following its TYPE_CLAIM record. */
+    public static final byte TYPE_CLAIM_CARD = 6;
+    /** The dealer's verdict on a claim; value is 0 for accepted, 1 for stale and 2 for invalid. */
+    public static final byte TYPE_VERDICT = 7;
+    /** A player's new score (value). */
+    public static final byte TYPE_SCORE = 8;
+    /** A reshuffle; value is the number of cards returned to the deck. */
+    public static final byte TYPE_RESHUFFLE = 9;
+
+    private static final long MAGIC = 0x5345544A524E4C31L; // "SETJRNL1"
+    private static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * The number of records in one mapped segment of the file.
+     */
+    private static final int SEGMENT_RECORDS = 1 << 16;
+
+    /**
+     * The maximal number of segments (records beyond them are dropped).
+     */
+    private static final int MAX_SEGMENTS = 4096;
+
+    /**
+     * The journal file (null if journaling is off).
+     */
+    private final FileChannel channel;
+
+    private final MappedByteBuffer header;
+
+    /**
+     * segments[i] maps records i * SEGMENT_RECORDS to (i + 1) * SEGMENT_RECORDS - 1 (null until first used).
+     */
+    private final AtomicReferenceArray<MappedByteBuffer> segments;
+
+    /**
+     * The number of reserved records.
+     */
+    private final AtomicLong records = new AtomicLong();
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile boolean closed;
+
+    /**
+     * True iff recording failed and was stopped.
+     */
+    private volatile boolean failed;
+
+    /**
+     * The logger to report a recording failure to.
+     */
+    private final Logger logger;
+
+    private static final GameJournal DISABLED = new GameJournal();
+
+    private GameJournal() {
+        channel = null;
+        header = null;
+        segments = null;
+        logger = null;
+    }
+
+    private GameJournal(FileChannel channel, Logger logger) throws IOException {
+        this.channel = channel;
+        this.logger = logger;
+        this.segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.putLong(0, MAGIC);
+        header.putInt(8, VERSION);
+        header.putInt(12, RECORD_SIZE);
+        header.putLong(16, System.currentTimeMillis());
+        header.putLong(24, 0);
+    }
+
+    /**
+     * Creates (or overwrites) a journal file.
+     *
+     * @param file   - the journal file.
+     * @param logger - the logger to report a recording failure to.
+     * @return - the journal.
+     * @throws IOException - if the file cannot be created.
+     */
+    public static GameJournal open(Path file, Logger logger) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new GameJournal(channel, logger);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return - a journal that records nothing.
+     */
+    public static GameJournal disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return - true iff events are recorded.
+     */
+    public boolean isEnabled() {
+        return channel != null && !closed && !failed;
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param type   - the record type.
+     * @param player - the player id (-1 if none).
+     * @param slot   - the table slot (-1 if none).
+     * @param card   - the card id (-1 if none).
+     * @param value  - the type specific value.
+     */
+    public void record(byte type, int player, int slot, int card, long value) {
+        if (!isEnabled()) return;
+        write(records.getAndIncrement(), type, player, slot, card, value);
+    }
+
+    /**
+     * Records a claim and its cards as consecutive records.
+     *
+     * @param player  - the player id.
+     * @param slots   - the claimed slots.
+     * @param cards   - the claimed cards.
+     * @param version - the table version the claim was made at.
+     */
+    public void recordClaim(int player, int[] slots, int[] cards, long version) {
+        if (!isEnabled()) return;
+        long first = records.getAndAdd(1 + slots.length);
+        for (int i = 0; i < slots.length; i++)
+            write(first + 1 + i, TYPE_CLAIM_CARD, player, slots[i], cards[i], version);
+        write(first, TYPE_CLAIM, player, -1, slots.length, version);
+    }
+
+    private void write(long record, byte type, int player, int slot, int card, long value) {
+        MappedByteBuffer segment = segment(record / SEGMENT_RECORDS);
+        if (segment == null) return;
+        int offset = (int) (record % SEGMENT_RECORDS) * RECORD_SIZE;
+        segment.putLong(offset, System.nanoTime() - startNanos);
+        segment.putInt(offset + 12, player);
+        segment.putInt(offset + 16, slot);
+        segment.putInt(offset + 20, card);
+        segment.putLong(offset + 24, value);
+        segment.put(offset + 8, type);
+    }
+
+    private MappedByteBuffer segment(long index) {
+        if (index >= MAX_SEGMENTS) return null;
+        MappedByteBuffer segment = segments.get((int) index);
+        if (segment != null) return segment;
+        synchronized (this) {
+            segment = segments.get((int) index);
+            if (segment == null && !closed && !failed) {
+                try {
+                    long position = HEADER_SIZE + index * SEGMENT_RECORDS * RECORD_SIZE;
+                    long length = (long) SEGMENT_RECORDS * RECORD_SIZE;
+                    allocate(position, length);
+                    segment = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    return null;
+                }
+                segments.set((int) index, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Writes zeros over a region of the file, so the disk space of a segment is taken before it is mapped: a full
+     * disk then fails here, instead of faulting a later write to the mapped memory.
+     */
+    private void allocate(long position, long length) throws IOException {
+        ByteBuffer zeros = ByteBuffer.allocate(64 * 1024);
+        for (long done = 0; done < length; ) {
+            zeros.clear();
+            zeros.limit((int) Math.min(zeros.capacity(), length - done));
+            done += channel.write(zeros, position + done);
+        }
+    }
+
+    /**
+     * Stops recording after a failure, reporting only the first one.
+     */
+    private synchronized void fail(Throwable e) {
+        if (failed) return;
+        failed = true;
+        logger.severe("warning: cannot write journal, journaling stopped: " + e);
+    }
+
+    /**
+     * @return - the number of records written (or being written).
+     */
+    public long size() {
+        return Math.min(records.get(), (long) MAX_SEGMENTS * SEGMENT_RECORDS);
+    }
+
+    /**
+     * Writes the number of records to the header, flushes the journal to the file and closes it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null || closed) return;
+        closed = true;
+        header.putLong(24, size());
+        header.force();
+        for (int i = 0; i < segments.length(); i++)
+            if (segments.get(i) != null) segments.get(i).force();
+        channel.close();
+    }
+}
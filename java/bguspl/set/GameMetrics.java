@@ -0,0 +1,221 @@
+package bguspl.set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Records the runtime behavior of a game (dealer, table and players) and publishes it as a JMX MBean.
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    private final LatencyHistogram claimLatency = new LatencyHistogram();
+    private final LatencyHistogram tableLockWait = new LatencyHistogram();
+    private final LatencyHistogram tableLockHold = new LatencyHistogram();
+    private final LongAdder staleClaims = new LongAdder();
+    private final LongAdder reshuffles = new LongAdder();
+    private final LongAdder points = new LongAdder();
+    private final LongAdder penalties = new LongAdder();
+    private final LongAdder freezes = new LongAdder();
+    private final LongAdder keyDrops = new LongAdder();
+    private final AtomicInteger maxClaimBatch = new AtomicInteger();
+
+    /**
+     * Reports the number of claims waiting for the dealer.
+     */
+    private volatile IntSupplier claimQueueDepth = () -> 0;
+
+    /**
+     * The name the metrics are registered under (null if not registered).
+     */
+    private ObjectName name;
+
+    /**
+     * Publishes the metrics on the platform MBean server, as bguspl.set:type=Game,name=(name).
+     *
+     * @param game   - the name of the game.
+     * @param logger - the logger for registration failures.
+     */
+    public synchronized void register(String game, Logger logger) {
+        try {
+            ObjectName objectName = new ObjectName("bguspl.set:type=Game,name=" + ObjectName.quote(game));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(this, objectName);
+            name = objectName;
+        } catch (JMException e) {
+            logger.warning("cannot publish game metrics: " + e);
+        }
+    }
+
+    /**
+     * Stops publishing the metrics.
+     */
+    public synchronized void unregister() {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ignored) {
+        }
+        name = null;
+    }
+
+    /**
+     * @param depth - reports the number of claims waiting for the dealer.
+     */
+    public void claimQueue(IntSupplier depth) {
+        claimQueueDepth = depth;
+    }
+
+    /**
+     * @param size - the number of claims in a batch the dealer is about to check.
+     */
+    public void claimBatch(int size) {
+        maxClaimBatch.accumulateAndGet(size, Math::max);
+    }
+
+    /**
+     * @param submittedNanos - the time (System.nanoTime) the claim was submitted at.
+     * @param stale          - true iff the claim was dropped as stale.
+     */
+    public void claimChecked(long submittedNanos, boolean stale) {
+        claimLatency.record(System.nanoTime() - submittedNanos);
+        if (stale) staleClaims.increment();
+    }
+
+    /**
+     * Records the wait for the table lock. Call right after acquiring it.
+     *
+     * @param requestedNanos - the time (System.nanoTime) the lock was requested at.
+     * @return - the time the lock was acquired at, to pass to tableUnlocked.
+     */
+    public long tableLocked(long requestedNanos) {
+        long acquired = System.nanoTime();
+        tableLockWait.record(acquired - requestedNanos);
+        return acquired;
+    }
+
+    /**
+     * Records the hold of the table lock. Call right before releasing it.
+     *
+     * @param acquiredNanos - the time returned by tableLocked.
+     */
+    public void tableUnlocked(long acquiredNanos) {
+        tableLockHold.record(System.nanoTime() - acquiredNanos);
+    }
+
+    public void reshuffled() {
+        reshuffles.increment();
+    }
+
+    public void point() {
+        points.increment();
+    }
+
+    public void penalty() {
+        penalties.increment();
+    }
+
+    public void frozen() {
+        freezes.increment();
+    }
+
+    public void keyDropped() {
+        keyDrops.increment();
+    }
+
+    @Override
+    public long getClaims() {
+        return claimLatency.count();
+    }
+
+    @Override
+    public long getStaleClaims() {
+        return staleClaims.sum();
+    }
+
+    @Override
+    public double getClaimLatencyMeanMicros() {
+        return claimLatency.meanMicros();
+    }
+
+    @Override
+    public long getClaimLatencyP50Micros() {
+        return claimLatency.percentileMicros(50);
+    }
+
+    @Override
+    public long getClaimLatencyP99Micros() {
+        return claimLatency.percentileMicros(99);
+    }
+
+    @Override
+    public long getClaimLatencyMaxMicros() {
+        return claimLatency.maxMicros();
+    }
+
+    @Override
+    public int getClaimQueueDepth() {
+        return claimQueueDepth.getAsInt();
+    }
+
+    @Override
+    public int getMaxClaimBatch() {
+        return maxClaimBatch.get();
+    }
+
+    @Override
+    public long getTableLockAcquisitions() {
+        return tableLockWait.count();
+    }
+
+    @Override
+    public double getTableLockWaitMeanMicros() {
+        return tableLockWait.meanMicros();
+    }
+
+    @Override
+    public long getTableLockWaitMaxMicros() {
+        return tableLockWait.maxMicros();
+    }
+
+    @Override
+    public double getTableLockHoldMeanMicros() {
+        return tableLockHold.meanMicros();
+    }
+
+    @Override
+    public long getTableLockHoldMaxMicros() {
+        return tableLockHold.maxMicros();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles.sum();
+    }
+
+    @Override
+    public long getPoints() {
+        return points.sum();
+    }
+
+    @Override
+    public long getPenalties() {
+        return penalties.sum();
+    }
+
+    @Override
+    public long getFreezes() {
+        return freezes.sum();
+    }
+
+    @Override
+    public long getKeyDrops() {
+        return keyDrops.sum();
+    }
+}
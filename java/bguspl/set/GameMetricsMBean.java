@@ -0,0 +1,61 @@
+package bguspl.set;
+
+/**
+ * The runtime metrics of a game, as published over JMX.
+ */
+public interface GameMetricsMBean {
+
+    /** @return - the number of claims the dealer gave a verdict on. */
+    long getClaims();
+
+    /** @return - the number of claims dropped because the claimed cards were taken or replaced first. */
+    long getStaleClaims();
+
+    /** @return - the mean time from a claim to its verdict (in microseconds). */
+    double getClaimLatencyMeanMicros();
+
+    /** @return - the median time from a claim to its verdict (in microseconds, rounded up to a power of 2 ns). */
+    long getClaimLatencyP50Micros();
+
+    /** @return - the 99th percentile of the time from a claim to its verdict (in microseconds, likewise). */
+    long getClaimLatencyP99Micros();
+
+    /** @return - the longest time from a claim to its verdict (in microseconds). */
+    long getClaimLatencyMaxMicros();
+
+    /** @return - the number of claims currently waiting for the dealer. */
+    int getClaimQueueDepth();
+
+    /** @return - the largest number of claims the dealer checked in one batch. */
+    int getMaxClaimBatch();
+
+    /** @return - the number of times the table lock was taken by an instrumented critical section. */
+    long getTableLockAcquisitions();
+
+    /** @return - the mean time waited for the table lock (in microseconds). */
+    double getTableLockWaitMeanMicros();
+
+    /** @return - the longest time waited for the table lock (in microseconds). */
+    long getTableLockWaitMaxMicros();
+
+    /** @return - the mean time the table lock was held (in microseconds). */
+    double getTableLockHoldMeanMicros();
+
+    /** @return - the longest time the table lock was held (in microseconds). */
+    long getTableLockHoldMaxMicros();
+
+    /** @return - the number of times the dealer returned the table cards to the deck. */
+    long getReshuffles();
+
+    /** @return - the number of points given. */
+    long getPoints();
+
+    /** @return - the number of penalties given. */
+    long getPenalties();
+
+    /** @return - the number of times a player was frozen (for a point or a penalty). */
+    long getFreezes();
+
+    /** @return - the number of key presses dropped (empty slot or full input queue). */
+    long getKeyDrops();
+}
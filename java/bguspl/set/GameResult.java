@@ -0,0 +1,40 @@
+package bguspl.set;
+
+/**
+ * The outcome of a single game run by a GameHost.
+ */
+public class GameResult {
+
+    /**
+     * The id of the game (unique within its host).
+     */
+    public final int gameId;
+
+    /**
+     * The final score of each player (by player id).
+     */
+    public final int[] scores;
+
+    /**
+     * The ids of the player/s with the highest score.
+     */
+    public final int[] winners;
+
+    /**
+     * The game time (in milliseconds) the game took.
+     */
+    public final long durationMillis;
+
+    /**
+     * True iff the game was terminated before it ended by itself.
+     */
+    public final boolean terminated;
+
+    public GameResult(int gameId, int[] scores, int[] winners, long durationMillis, boolean terminated) {
+        this.gameId = gameId;
+        this.scores = scores;
+        this.winners = winners;
+        this.durationMillis = durationMillis;
+        this.terminated = terminated;
+    }
+}
@@ -0,0 +1,67 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in power of 2 nanosecond buckets.
+ */
+public class LatencyHistogram {
+
+    /**
+     * buckets[i] counts the durations d with 2^(i-1) <= d < 2^i nanoseconds (bucket 0 counts d <= 0).
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param nanos - the duration to record.
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos));
+        total.addAndGet(Math.max(0, nanos));
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * @return - the number of recorded durations.
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++)
+            count += buckets.get(i);
+        return count;
+    }
+
+    /**
+     * @return - the mean recorded duration (in microseconds), 0 if none was recorded.
+     */
+    public double meanMicros() {
+        long count = count();
+        return count == 0 ? 0 : total.get() / 1000.0 / count;
+    }
+
+    /**
+     * @return - the longest recorded duration (in microseconds).
+     */
+    public long maxMicros() {
+        return max.get() / 1000;
+    }
+
+    /**
+     * @param percentile - the percentile (0 to 100).
+     * @return - an upper bound of the percentile of the recorded durations (in microseconds), 0 if none was recorded.
+     */
+    public long percentileMicros(double percentile) {
+        long count = count();
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(i == 0 ? 0 : (1L << i) / 1000, maxMicros());
+        }
+        return maxMicros();
+    }
+}
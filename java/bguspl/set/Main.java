@@ -6,6 +6,8 @@ import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -47,8 +49,12 @@ public class Main {
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
-        try {
-            ui = new UserInterfaceSwing(logger, config, players);
+        if (config.headless) {
+            logger.severe("running headless simulation at speed " + config.simulationSpeed);
+            if (config.humanPlayers > 0)
+                logger.severe("warning: running with human players with no user interface");
+        } else try {
+            ui = new UserInterfaceBus(config, new UserInterfaceSwing(logger, config, players));
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
@@ -56,8 +62,10 @@ public class Main {
                 logger.severe("warning: running with human players with no user interface");
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
+        Clock clock = config.simulationSpeed > 0 && config.simulationSpeed != 1 ? new SimulationClock(config.simulationSpeed) : new SystemClock();
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, clock, config.threadModel.factory(logger), openJournal(logger, config.journalFile));
+        env.metrics.register("main", logger);
 
         // create the game entities
         Table table = new Table(env);
@@ -66,32 +74,60 @@ public class Main {
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
         // start the dealer thread
-        ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
-        dealerThread.startWithLog();
+        Thread dealerThread = env.threadFactory.newThread(dealer);
+        dealerThread.setName("dealer");
+        ThreadLogger.logStart(logger, dealerThread.getName());
+        dealerThread.start();
 
         try {
             // shutdown stuff
-            dealerThread.joinWithLog();
-            if (!xButtonPressed && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
+            try {
+                dealerThread.join();
+            } finally {
+                ThreadLogger.logStop(logger, dealerThread.getName());
+            }
+            if (!xButtonPressed && !config.headless && config.endGamePauseMillies > 0) Thread.sleep(config.endGamePauseMillies);
         } catch (InterruptedException ignored) {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
+            closeJournal(logger, env.journal);
             for (Handler h : logger.getHandlers()) h.flush();
         }
     }
 
-    private static Logger initLogger() {
+    /**
+     * Opens the game journal, or returns a disabled journal if there is no journal file or it cannot be created.
+     */
+    static GameJournal openJournal(Logger logger, String file) {
+        if (file.isEmpty()) return GameJournal.disabled();
+        try {
+            return GameJournal.open(Paths.get(file), logger);
+        } catch (IOException | InvalidPathException e) {
+            logger.severe("warning: cannot create journal file " + file + ": " + e.getMessage());
+            return GameJournal.disabled();
+        }
+    }
+
+    static void closeJournal(Logger logger, GameJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.severe("warning: cannot close journal file: " + e.getMessage());
+        }
+    }
+
+    static Logger initLogger() {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            handler = new AsyncLogHandler(new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log"));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -108,10 +144,11 @@ public class Main {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+            // formatted by the log writer thread only (see AsyncLogHandler)
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr)
                 );
             }
         }));
@@ -0,0 +1,89 @@
+package bguspl.set;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue for many producers and a single consumer.
+ *
+ * @param <E> - the type of the elements.
+ * @inv elements are polled in the order their offers succeeded
+ */
+class RingBuffer<E> {
+
+    /**
+     * The elements; elements[i & mask] holds the element of position i.
+     */
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * sequence[i & mask] == i iff position i may be offered to, and i + 1 once its element was offered.
+     */
+    private final AtomicLongArray sequence;
+
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * The next position to offer to.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The next position to poll (written by the consumer thread only).
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity - the number of elements the buffer holds (a power of 2).
+     */
+    RingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of 2");
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequence = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequence.set(i, i);
+    }
+
+    /**
+     * Adds an element without locking or waiting.
+     * @param element - the element.
+     * @return - false iff the buffer is full.
+     */
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            long available = sequence.get((int) position & mask) - position;
+            if (available < 0) return false;
+            if (available == 0 && tail.compareAndSet(position, position + 1)) {
+                elements.set((int) position & mask, element);
+                sequence.set((int) position & mask, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element. May only be called by the consumer thread.
+     * @return - the element, or null if the buffer is empty.
+     */
+    E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequence.get(index) != position + 1) return null;
+        E element = elements.getAndSet(index, null);
+        sequence.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * @return - true iff every offered element was polled.
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
@@ -0,0 +1,38 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An accelerated implementation of the Clock interface: game time runs speed times faster than real time.
+ */
+public class SimulationClock implements Clock {
+
+    private final double speed;
+    private final long startMillis;
+    private final long startNanos;
+
+    /**
+     * @param speed - the number of game milliseconds that pass in one real millisecond.
+     */
+    public SimulationClock(double speed) {
+        if (speed <= 0) throw new IllegalArgumentException("simulation speed must be positive: " + speed);
+        this.speed = speed;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return startMillis + (long) ((System.nanoTime() - startNanos) * speed / 1_000_000.0);
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        TimeUnit.NANOSECONDS.sleep(toRealNanos(millis));
+    }
+
+    @Override
+    public long toRealNanos(long millis) {
+        return (long) (millis * 1_000_000.0 / speed);
+    }
+}
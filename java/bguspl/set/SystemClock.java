@@ -0,0 +1,24 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real time implementation of the Clock interface.
+ */
+public class SystemClock implements Clock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    @Override
+    public long toRealNanos(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
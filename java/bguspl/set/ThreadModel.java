@@ -0,0 +1,37 @@
+package bguspl.set;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+/**
+ * The kinds of threads the dealer, players and computer players run on.
+ */
+public enum ThreadModel {
+
+    /**
+     * One operating system thread per dealer, player and computer player.
+     */
+    PLATFORM,
+
+    /**
+     * Virtual threads (Java 21+), so blocked players do not hold operating system threads.
+     */
+    VIRTUAL;
+
+    /**
+     * Creates a factory for threads of this model. Virtual threads are looked up reflectively, so the game still runs
+     * (on platform threads, with a warning) on Java versions without them.
+     *
+     * @param logger - the logger to report a fallback to.
+     * @return - the thread factory.
+     */
+    public ThreadFactory factory(Logger logger) {
+        if (this == VIRTUAL) try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            logger.severe("warning: virtual threads are not supported by this java version, using platform threads.");
+        }
+        return Thread::new;
+    }
+}
@@ -0,0 +1,191 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decouples the game threads from the Swing user interface: game threads publish events into a lock-free ring
+ * buffer, and the event dispatch thread applies everything published since its previous frame in one update,
+ * so a burst of changes is painted once.
+ *
+ * @inv events are applied in the order they were published (superseded timer and freeze events are skipped)
+ */
+public class UserInterfaceBus implements UserInterface {
+
+    /**
+     * The number of events the ring buffer holds (a power of 2).
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * The time between two frames (in milliseconds).
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    private enum Kind { PLACE_CARD, REMOVE_CARD, PLACE_TOKEN, REMOVE_TOKENS, REMOVE_SLOT_TOKENS, REMOVE_TOKEN,
+        COUNTDOWN, ELAPSED, FREEZE, SCORE, WINNER, DISPOSE }
+
+    private static final class Event {
+        final Kind kind;
+        final int player;
+        final int slot;
+        final long value;
+        final int[] players;
+
+        Event(Kind kind, int player, int slot, long value, int[] players) {
+            this.kind = kind;
+            this.player = player;
+            this.slot = slot;
+            this.value = value;
+            this.players = players;
+        }
+    }
+
+    /**
+     * The user interface the events are applied to (on the event dispatch thread).
+     */
+    private final UserInterface ui;
+
+    /**
+     * The published events, not yet applied.
+     */
+    private final RingBuffer<Event> events = new RingBuffer<>(CAPACITY);
+
+    /**
+     * The events drained in the current frame (used by the event dispatch thread only).
+     */
+    private final List<Event> frame = new ArrayList<>();
+
+    /**
+     * The index in frame of the last freeze event of each player (used by the event dispatch thread only).
+     */
+    private final int[] lastFreeze;
+
+    private final Timer timer;
+
+    /**
+     * @param config - the game configuration.
+     * @param ui     - the user interface to apply the events to on the event dispatch thread.
+     */
+    public UserInterfaceBus(Config config, UserInterface ui) {
+        this.ui = ui;
+        this.lastFreeze = new int[config.players];
+        timer = new Timer(FRAME_MILLIS, e -> applyFrame());
+        timer.start();
+    }
+
+    /**
+     * Publishes an event without locking. Only if the event dispatch thread falls a whole buffer behind does the
+     * publisher wait for it to free a position.
+     */
+    private void publish(Event event) {
+        while (!events.offer(event))
+            Thread.yield();//the buffer is full
+    }
+
+    /**
+     * Applies all events published since the previous frame. Runs on the event dispatch thread.
+     */
+    private void applyFrame() {
+        for (Event event; (event = events.poll()) != null; )
+            frame.add(event);
+        if (frame.isEmpty()) return;
+
+        int lastTimer = -1;
+        Arrays.fill(lastFreeze, -1);
+        for (int i = 0; i < frame.size(); i++) {
+            Event event = frame.get(i);
+            if (event.kind == Kind.COUNTDOWN || event.kind == Kind.ELAPSED) lastTimer = i;
+            else if (event.kind == Kind.FREEZE) lastFreeze[event.player] = i;
+        }
+        for (int i = 0; i < frame.size(); i++) {
+            Event event = frame.get(i);
+            boolean superseded = (event.kind == Kind.COUNTDOWN || event.kind == Kind.ELAPSED) ? i != lastTimer
+                    : event.kind == Kind.FREEZE && i != lastFreeze[event.player];
+            if (!superseded) apply(event);
+        }
+        frame.clear();
+    }
+
+    private void apply(Event event) {
+        switch (event.kind) {
+            case PLACE_CARD: ui.placeCard((int) event.value, event.slot); break;
+            case REMOVE_CARD: ui.removeCard(event.slot); break;
+            case PLACE_TOKEN: ui.placeToken(event.player, event.slot); break;
+            case REMOVE_TOKENS: ui.removeTokens(); break;
+            case REMOVE_SLOT_TOKENS: ui.removeTokens(event.slot); break;
+            case REMOVE_TOKEN: ui.removeToken(event.player, event.slot); break;
+            case COUNTDOWN: ui.setCountdown(event.value, event.player == 1); break;
+            case ELAPSED: ui.setElapsed(event.value); break;
+            case FREEZE: ui.setFreeze(event.player, event.value); break;
+            case SCORE: ui.setScore(event.player, (int) event.value); break;
+            case WINNER: ui.announceWinner(event.players); break;
+            case DISPOSE:
+                timer.stop();
+                ui.dispose();
+                break;
+        }
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        publish(new Event(Kind.PLACE_CARD, -1, slot, card, null));
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        publish(new Event(Kind.REMOVE_CARD, -1, slot, 0, null));
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        publish(new Event(Kind.PLACE_TOKEN, player, slot, 0, null));
+    }
+
+    @Override
+    public void removeTokens() {
+        publish(new Event(Kind.REMOVE_TOKENS, -1, -1, 0, null));
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        publish(new Event(Kind.REMOVE_SLOT_TOKENS, -1, slot, 0, null));
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        publish(new Event(Kind.REMOVE_TOKEN, player, slot, 0, null));
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        publish(new Event(Kind.COUNTDOWN, warn ? 1 : 0, -1, millies, null));
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        publish(new Event(Kind.ELAPSED, -1, -1, millies, null));
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        publish(new Event(Kind.FREEZE, player, -1, millies, null));
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        publish(new Event(Kind.SCORE, player, -1, score, null));
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        publish(new Event(Kind.WINNER, -1, -1, 0, players.clone()));
+    }
+
+    @Override
+    public void dispose() {
+        publish(new Event(Kind.DISPOSE, -1, -1, 0, null));
+    }
+}
@@ -40,6 +40,24 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the given array of cards (see findSets method).
+     *
+     * @param cards - an array of card ids.
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] cards, int count);
+
+    /**
+     * Returns the card that completes a legal set with the two given cards (for sets of 3 cards only).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the completing card, or -1 if sets are not made of 3 cards (i.e. config.featureSize != 3).
+     */
+    int completeSet(int first, int second);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
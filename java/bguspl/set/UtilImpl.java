@@ -11,10 +11,61 @@ import java.util.stream.IntStream;
  */
 public class UtilImpl implements Util {
 
+    /**
+     * The largest deck for which the pair -> third card table is precomputed (3^6 cards, a 2MB table).
+     */
+    private static final int MAX_PAIR_TABLE_DECK = 729;
+
     private final Config config;
 
+    /**
+     * Flat feature table: the i-th feature of card c is at features[c * featureCount + i].
+     */
+    private final int[] features;
+
+    /**
+     * The weight (featureSize ^ (featureCount - 1 - i)) of the i-th feature in a card id.
+     */
+    private final int[] weights;
+
+    /**
+     * One-hot packed cards: feature i of a card sets bit (i * featureSize + value), so a triple is a set iff
+     * a ^ b ^ c == a | b | c (null if featureCount * featureSize exceeds 64 bits).
+     */
+    private final long[] packedCards;
+
+    /**
+     * Flat pair table: the card completing the set {a, b} is at thirdCards[a * deckSize + b] (null for large decks, computed on demand).
+     */
+    private final int[] thirdCards;
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        weights = new int[config.featureCount];
+        for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+            weights[i] = weight;
+
+        features = new int[config.deckSize * config.featureCount];
+        int[] cardFeatures = new int[config.featureCount];
+        for (int card = 0; card < config.deckSize; ++card) {
+            cardToFeatures(card, cardFeatures);
+            System.arraycopy(cardFeatures, 0, features, card * config.featureCount, config.featureCount);
+        }
+
+        if (config.featureCount * config.featureSize <= Long.SIZE) {
+            packedCards = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedCards[card] |= 1L << (i * config.featureSize + features[card * config.featureCount + i]);
+        } else packedCards = null;
+
+        if (config.featureSize == 3 && config.deckSize <= MAX_PAIR_TABLE_DECK) {
+            thirdCards = new int[config.deckSize * config.deckSize];
+            for (int a = 0; a < config.deckSize; ++a)
+                for (int b = 0; b < config.deckSize; ++b)
+                    thirdCards[a * config.deckSize + b] = computeThirdCard(a, b);
+        } else thirdCards = null;
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -24,6 +75,23 @@ public class UtilImpl implements Util {
         }
     }
 
+    /**
+     * Computes the card completing a set with the two given cards: per feature, (-a - b) mod 3.
+     */
+    private int computeThirdCard(int a, int b) {
+        int card = 0;
+        for (int i = 0, fa = a * config.featureCount, fb = b * config.featureCount; i < config.featureCount; ++i)
+            card += ((6 - features[fa + i] - features[fb + i]) % 3) * weights[i];
+        return card;
+    }
+
+    /**
+     * Returns the card completing a set with the two given cards (only meaningful when featureSize == 3).
+     */
+    private int thirdCard(int a, int b) {
+        return thirdCards != null ? thirdCards[a * config.deckSize + b] : computeThirdCard(a, b);
+    }
+
     @Override
     public int[] cardToFeatures(int card) {
         int[] features = new int[config.featureCount];
@@ -40,21 +108,42 @@ public class UtilImpl implements Util {
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
+        if (packedCards == null) return testSetByFeatures(cards);
+        if (cards.length == 3) {
+            long a = packedCards[cards[0]], b = packedCards[cards[1]], c = packedCards[cards[2]];
+            return (a ^ b ^ c) == (a | b | c);
+        }
+
+        // a feature is sameSame iff its lane has a single bit set, and butDifferent iff it has one bit per card
+        long union = 0;
+        for (int card : cards)
+            union |= packedCards[card];
+        long laneMask = (1L << config.featureSize) - 1;
+        for (int i = 0; i < config.featureCount; ++i) {
+            int values = Long.bitCount((union >>> (i * config.featureSize)) & laneMask);
+            if ((values <= 1) == (values == cards.length)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a set directly against the feature table (used when cards do not fit in a packed long).
+     */
+    private boolean testSetByFeatures(int[] cards) {
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
 
             // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
+            for (int j = 1; j < cards.length; ++j)
+                if (feature(cards[0], i) != feature(cards[j], i)) {
                     sameSame = false;
                     break;
                 }
 
             // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
+            for (int j = 1; j < cards.length && butDifferent; ++j)
+                for (int k = j; k < cards.length; ++k)
+                    if (feature(cards[j - 1], i) == feature(cards[k], i)) {
                         butDifferent = false;
                         break;
                     }
@@ -64,18 +153,56 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    private int feature(int card, int i) {
+        return features[card * config.featureCount + i];
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = new int[deck.size()];
+        for (int i = 0; i < cards.length; ++i)
+            cards[i] = deck.get(i);
+        return findSets(cards, count);
+    }
+
+    @Override
+    public List<int[]> findSets(int[] cards, int count) {
+        return config.featureSize == 3 ? findSetsByPairs(cards, count) : findSetsByCombinations(cards, count);
+    }
+
+    /**
+     * Scans every pair of cards and looks up the card completing it in a membership bitmap (O(n^2)).
+     * Each set {a < b < c} is reported once, from the pair of its two smallest cards.
+     */
+    private List<int[]> findSetsByPairs(int[] cards, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
+        long[] present = new long[(config.deckSize + 63) >>> 6];
+        for (int card : cards)
+            present[card >>> 6] |= 1L << card;
+
+        for (int i = 0; i < cards.length; ++i)
+            for (int j = i + 1; j < cards.length; ++j) {
+                int a = cards[i], b = cards[j];
+                int c = thirdCard(a, b);
+                if (c > a && c > b && (present[c >>> 6] & (1L << c)) != 0) {
+                    sets.add(a < b ? new int[]{a, b, c} : new int[]{b, a, c});
+                    if (sets.size() >= count) return sets;
+                }
+            }
+        return sets;
+    }
+
+    private List<int[]> findSetsByCombinations(int[] deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.length;
         int r = config.featureSize;
         int[] combination = new int[r];
 
         for (int i = 0; i < r; ++i)
             combination[i] = i;
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
+        while (combination[r - 1] < n) {
+            int[] cards = Arrays.stream(combination).map(i -> deck[i]).sorted().toArray();
             if (testSet(cards)) {
                 sets.add(cards);
                 if (sets.size() >= count) return sets;
@@ -90,6 +217,11 @@ public class UtilImpl implements Util {
         return sets;
     }
 
+    @Override
+    public int completeSet(int first, int second) {
+        return config.featureSize == 3 ? thirdCard(first, second) : -1;
+    }
+
     public void spin() {
         if (config.randomSpinMax <= 0) return;
         long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
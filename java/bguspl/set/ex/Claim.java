@@ -0,0 +1,40 @@
+package bguspl.set.ex;
+
+/**
+ * An immutable snapshot of the slots a player selected, taken when the player placed its last token.
+ */
+public final class Claim {
+
+    /**
+     * The id of the player that made the claim.
+     */
+    public final int player;
+
+    /**
+     * The slots the player selected.
+     */
+    public final int[] slots;
+
+    /**
+     * The card in each selected slot, at the time the claim was made.
+     */
+    public final int[] cards;
+
+    /**
+     * The table version the claim was made at (see Table.version).
+     */
+    public final long version;
+
+    /**
+     * The time (System.nanoTime) the claim was submitted at.
+     */
+    public final long submitted;
+
+    public Claim(int player, int[] slots, int[] cards, long version, long submitted) {
+        this.player = player;
+        this.slots = slots;
+        this.cards = cards;
+        this.version = version;
+        this.submitted = submitted;
+    }
+}
@@ -0,0 +1,87 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class decides which of a batch of claims win, fairly by submission time. Used by the dealer thread only.
+ */
+public class ClaimArbiter {
+
+    /**
+     * The outcome of a single claim.
+     */
+    public enum Outcome {
+        /** The claim is a legal set that is still on the table, and was claimed first. */
+        ACCEPTED,
+        /** The claimed cards were taken or replaced before the claim was arbitrated. */
+        STALE,
+        /** The claimed cards are on the table, but are not a legal set. */
+        INVALID
+    }
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * The game table.
+     */
+    private final Table table;
+
+    /**
+     * Bit (card % 64) of taken[card / 64] is set iff the card belongs to a claim accepted in the current batch.
+     */
+    private final long[] taken;
+
+    public ClaimArbiter(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+        this.taken = new long[(env.config.deckSize + 63) >>> 6];
+    }
+
+    /**
+     * Arbitrates a batch of claims: the claims are resolved one by one in submission order. A claim sharing a card
+     * with a claim accepted before it, or no longer matching the table, is stale; only the others are tested for
+     * being sets. The claims are tested on the calling thread: each player has at most one claim waiting, so a
+     * batch holds at most one claim per player, and testing one takes about 20ns (see ClaimBenchmark) - less than
+     * handing the batch to other threads would cost.
+     *
+     * @param batch - the claims.
+     * @return - the outcome of each claim, in the order of the sorted batch.
+     *
+     * @post - the batch is sorted by submission time.
+     */
+    public Outcome[] arbitrate(List<Claim> batch) {
+        batch.sort(Comparator.comparingLong((Claim claim) -> claim.submitted));
+        Arrays.fill(taken, 0);
+        Outcome[] outcomes = new Outcome[batch.size()];
+        for (int i = 0; i < outcomes.length; i++) {
+            Claim claim = batch.get(i);
+            if (overlapsTaken(claim) || !table.isCurrent(claim))
+                outcomes[i] = Outcome.STALE;
+            else if (!isSet(claim))
+                outcomes[i] = Outcome.INVALID;
+            else {
+                outcomes[i] = Outcome.ACCEPTED;
+                for (int card : claim.cards)
+                    taken[card >>> 6] |= 1L << card;
+            }
+        }
+        return outcomes;
+    }
+
+    private boolean isSet(Claim claim) {
+        return claim.cards.length == env.config.featureSize && env.util.testSet(claim.cards);
+    }
+
+    private boolean overlapsTaken(Claim claim) {
+        for (int card : claim.cards)
+            if ((taken[card >>> 6] & (1L << card)) != 0)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * An interface for the decision making of computer players: which slots the player presses next.
+ */
+public interface ComputerStrategy {
+
+    /**
+     * Chooses the next key presses of the computer player (may wait, e.g. to simulate a human reaction time).
+     *
+     * @return - the slots to press, in order (empty if there is nothing to press right now).
+     * @throws InterruptedException - if the computer player thread was interrupted while deciding.
+     */
+    int[] nextPresses() throws InterruptedException;
+
+    /**
+     * Creates the strategy named by config.computerStrategy.
+     *
+     * @param env    - the game environment object.
+     * @param table  - the table the player plays on.
+     * @param player - the id of the computer player.
+     * @return - the strategy of the player.
+     */
+    static ComputerStrategy create(Env env, Table table, int player) {
+        switch (env.config.computerStrategy.toLowerCase()) {
+            case "setfinding":
+                return new SetFindingStrategy(env, table, player);
+            case "random":
+                return new RandomStrategy(env, table);
+            default:
+                env.logger.severe("unknown computer strategy " + env.config.computerStrategy + ", using random.");
+                return new RandomStrategy(env, table);
+        }
+    }
+}
@@ -1,24 +1,24 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.GameJournal;
 import java.util.ArrayList;
 
 import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-//import java.util.concurrent.BlockingQueue;
 //import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * This class manages the dealer's threads and data
  */
 public class Dealer implements Runnable {
     //added fields:
-     protected Queue <Player> players_needed_checking;
+     protected BlockingQueue <Claim> claims;
     //  private ArrayList<Integer> checkOverLap=new ArrayList<Integer>();
     /**
      * The game environment object.
@@ -34,9 +34,19 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
+     */
+    private final Deck deck;
+
+    /**
+     * Tracks whether a legal set can still be formed from the cards left in the game.
+     */
+    private final SetIndex setIndex;
+
+    /**
+     * Decides which of the queued claims win.
      */
-    private final List<Integer> deck;
+    private final ClaimArbiter arbiter;
 
     /**
      * True iff game should be terminated.
@@ -52,8 +62,11 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());   
-        this.players_needed_checking = new LinkedBlockingQueue <Player>();//added     
+        deck = new Deck(env.config.deckSize);
+        this.claims = new LinkedBlockingQueue <Claim>();//added     
+        this.setIndex = new SetIndex(env);
+        this.arbiter = new ClaimArbiter(env, table);
+        env.metrics.claimQueue(claims::size);
     }
     /**
      * The dealer thread starts here (main loop for the dealer thread).
@@ -63,7 +76,7 @@ public class Dealer implements Runnable {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         //initialize all player threads
         for (Player p : players) {
-            new Thread(p).start();
+            env.threadFactory.newThread(p).start();
         }
         while (!shouldFinish()) {
             placeCardsOnTable();
@@ -71,30 +84,48 @@ public class Dealer implements Runnable {
             updateTimerDisplay(true);    
         }
         announceWinners();
+        table.pacer.shutdown();
+        terminate();//release the player threads
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() { 
-        gameOn = true;      
-        reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+        setGameOn(true);
+        reshuffleTime = env.clock.currentTimeMillis() + env.config.turnTimeoutMillis;
         updateTimerDisplay(false);
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
-            sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            synchronized(players_needed_checking){
-                while(!players_needed_checking.isEmpty()){
-                    Player p = players_needed_checking.poll();
-                    checkSet(p);
-               }   
-
+        while (!terminate && env.clock.currentTimeMillis() < reshuffleTime) {
+            //check claims as soon as they arrive, and the ones that queued up meanwhile
+            Claim claim = sleepUntilWokenOrTimeout();
+            if(claim != null){
+                List<Claim> batch = new ArrayList<Claim>();
+                batch.add(claim);
+                claims.drainTo(batch);
+                checkSets(batch);
             }
-                   
+            updateTimerDisplay(false);
             placeCardsOnTable();
         }
-        gameOn = false;
+        setGameOn(false);
     }
+    /**
+     * Pauses or resumes the game, waking up the players waiting for it to resume.
+     */
+    private void setGameOn(boolean on) {
+        gameOn = on;
+        tableChanged();
+    }
+
+    /**
+     * Wakes up the players waiting for the game or the cards on the table to change.
+     */
+    private void tableChanged() {
+        for (Player p : players) {
+            p.stateChanged();
+        }
+    }
+
     /**
      * Called when the game should be terminated.
      */
@@ -112,7 +143,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setIndex.hasSets();
     }
 
     /**
@@ -122,45 +153,71 @@ public class Dealer implements Runnable {
         //only when someone found a set ,cards should be on size 3
         //activated only when a set is approved by testSet
        
-            synchronized(table){
+            table.locked(() -> {
                 for(int i=0;i<cards.length;i++){
                     int card=cards[i];
                     if (table.cardToSlot[card]!=null){
                         table.removeCard(table.cardToSlot[card]);    
                     }  
+                    setIndex.remove(card);
                 }
-            }
+            });
             restartTimerDisplayAfterSet();
         
     }
     /**
      * Check if any cards can be removed from the deck and placed on the table.
+     *
+     * @return the number of cards placed.
      */
-    private void placeCardsOnTable() {    
-        Collections.shuffle(deck);
+    private int placeCardsOnTable() {    
+        GameEvents.CardsMoved event = new GameEvents.CardsMoved();
+        event.begin();
+        int placed = 0;
         Collections.shuffle(table.EmptySlots);
-            synchronized(table.tableLock){
-                while(table.EmptySlots.size()>0 && deck.size()>0){
-                    int card;
-                    int slot=table.EmptySlots.get(0); 
-                    card=deck.get(0);
-                    deck.remove(0);  
-                    table.placeCard(card,slot);
-                }  
+            while(table.EmptySlots.size()>0 && !deck.isEmpty()){
+                int slot=table.EmptySlots.get(0); 
+                int card=deck.draw();//a random card
+                table.placeCard(card,slot);
+                placed++;
             }  
+        if(placed>0 && event.shouldCommit()){
+            event.toTable = true;
+            event.cards = placed;
+            event.deckSize = deck.size();
+            event.commit();
+        }
+        if(placed>0) tableChanged();
+        return placed;
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the next countdown display tick or until a player submits a set to check.
+     *
+     * @return the first claim waiting for a check, or null if the sleep timed out.
      */
-    private void sleepUntilWokenOrTimeout() {//we did
+    private Claim sleepUntilWokenOrTimeout() {//we did
         try{
-            Thread.sleep(100);
+            return claims.poll(env.clock.toRealNanos(millisUntilNextTick()), TimeUnit.NANOSECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            return null;
         }
     }
 
+    /**
+     * The time until the countdown display next changes: the next whole second, or the next hundredth of a second
+     * while the warning (which displays fractions) is shown. Without a display, the time until the reshuffle.
+     */
+    private long millisUntilNextTick() {
+        long remainingTime = reshuffleTime - env.clock.currentTimeMillis();
+        if (remainingTime <= 0 || env.config.headless)
+            return Math.max(0, remainingTime);
+        long tick = remainingTime <= env.config.turnTimeoutWarningMillis ? 10 : 1000;
+        long untilTick = remainingTime % tick;
+        return untilTick == 0 ? Math.min(tick, remainingTime) : untilTick;
+    }
+
     /**
      * Reset and/or update the countdown and the countdown display.
      */
@@ -168,10 +225,13 @@ public class Dealer implements Runnable {
         if(reset) { 
             removeAllCardsFromTable();
             env.ui.setCountdown(env.config.turnTimeoutMillis, false);
-            players_needed_checking.clear();
+            //release the players whose sets will not be checked anymore
+            for(Claim claim = claims.poll(); claim != null; claim = claims.poll()){
+                getPlayer(claim.player).checkDone();
+            }
         }   
         else{
-            long remainingTime = reshuffleTime - System.currentTimeMillis();
+            long remainingTime = reshuffleTime - env.clock.currentTimeMillis();
             //if the remaining time is less than the warning time, display the warning
             if ( remainingTime<=env.config.turnTimeoutWarningMillis) { 
                  if(remainingTime<=0){
@@ -192,28 +252,45 @@ public class Dealer implements Runnable {
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
+        env.metrics.reshuffled();
+        GameEvents.CardsMoved event = new GameEvents.CardsMoved();
+        event.begin();
+        int removed = 0;
         
-            synchronized(table.tableLock){
-                for(int i=0;i<env.config.tableSize;i++){//i is the slot in the grid
-                    if(table.slotToCard[i]!=null){
-                        deck.add(table.slotToCard[i]);
-                        table.removeCard(i);
-                    }
+            for(int i=0;i<env.config.tableSize;i++){//i is the slot in the grid
+                if(table.slotToCard[i]!=null){
+                    deck.add(table.slotToCard[i]);
+                    table.removeCard(i);
+                    removed++;
                 }
             }
         
-            synchronized(table.tableLock){
-                removeAllTokens();
-                removeAllCards();
-            } 
+            removeAllTokens();
+            removeAllCards();
+            env.journal.record(GameJournal.TYPE_RESHUFFLE, -1, -1, -1, removed);
          
-          
+        if(event.shouldCommit()){
+            event.toTable = false;
+            event.cards = removed;
+            event.deckSize = deck.size();
+            event.commit();
+        }
     }
 
     /**
      * Check who is/are the winner/s and displays them.
      */
     private void announceWinners() {
+        //announce the winner with winners array
+        env.ui.announceWinner(winners());  
+    }
+
+    /**
+     * Finds the player/s with the highest score.
+     *
+     * @return the ids of the winning players.
+     */
+    public int[] winners() {
         LinkedList<Integer> scores = new LinkedList<Integer>();         
         int maxScore = 0;
         //finds max score
@@ -233,97 +310,92 @@ public class Dealer implements Runnable {
         for(int i=0;i<scores.size();i++){
             winners[i] = scores.get(i);
         }
-        //announce the winner with winners array
-        env.ui.announceWinner(winners);  
+        return winners;
     }
     //*************************added functions **********************************************************************************/
     public void removeAllTokens(){
         
-            synchronized(table.tableLock){
-                for(int i=0;i<table.tokensPlaced.length;i++){//i is the slot in the grid
-                    //ArrayList<Integer> playerTokens=table.tokensPlaced [i];
-                    if (table.tokensPlaced[i].size()!=0){ 
-                        int size=table.tokensPlaced[i].size();
-                        for(int j=0;j<size;j++){
-                            table.removeToken(table.tokensPlaced [i].get(0),i);
-                        }  
-                    }
+            for(int i=0;i<env.config.tableSize;i++){//i is the slot in the grid
+                for(int player:table.tokens.playersOn(i)){
+                    table.removeToken(player,i);
                 }
             }
         
-           
-        for(int i=0;i<players.length;i++){
-            players[i].tokenCounter=0;
-        }
 
     }
     public  void removeAllCards(){
                   
-            synchronized(table.tableLock){
-                for(int i=0;i<env.config.tableSize;i++){//i is the slot in the grid
-                    if(table.slotToCard[i]!=null){
-                        table.removeCard(i);
-                    }
+            for(int i=0;i<env.config.tableSize;i++){//i is the slot in the grid
+                if(table.slotToCard[i]!=null){
+                    table.removeCard(i);
                 }
+            }
             
-        }
        
     }
-    public void checkSet(Player p){
-        synchronized(table){
-            int[] cards = p.getPlayerTokens();
-            //check if the size is valid for a set
-            if(p.tokenCounter==3){//the case someone  took the set before the player
-                //check if the set is valid-and give point or penalty according to the result
-                if (env.util.testSet(cards)){  
-                    removeTokens(p,cards);
-                    removeCardsFromTable(cards);     
-                    p.point();
-                    placeCardsOnTable();
-                }
-                else{          
-                    p.penalty();
-                } 
-                synchronized(p){
-                    p.notify();
-                }
+    /**
+     * Checks a batch of claims: the arbiter decides the outcome of each claim, then the accepted sets are removed
+     * from the table and the players are given points or penalties.
+     *
+     * @param batch - the claims.
+     */
+    public void checkSets(List<Claim> batch){
+        env.metrics.claimBatch(batch.size());
+        ClaimArbiter.Outcome[] outcomes = arbiter.arbitrate(batch);
+        boolean accepted = false;
+        for(int i=0;i<outcomes.length;i++){
+            Claim claim = batch.get(i);
+            Player p = getPlayer(claim.player);
+            long latency = System.nanoTime() - claim.submitted;
+            env.metrics.claimChecked(claim.submitted, outcomes[i]==ClaimArbiter.Outcome.STALE);
+            env.journal.record(GameJournal.TYPE_VERDICT, claim.player, -1, -1, outcomes[i].ordinal());
+            GameEvents.ClaimCheck event = new GameEvents.ClaimCheck();
+            event.begin();
+            //give point or penalty according to the result
+            if(outcomes[i]==ClaimArbiter.Outcome.ACCEPTED){
+                //close the slots before clearing them, so a token placed meanwhile is either cleared or rolled back
+                removeCardsFromTable(claim.cards);
+                removeTokens(claim.slots);
+                p.point();
+                accepted = true;
             }
-            synchronized(p){
-                p.notify();
-            }  
-        }             
+            else if(outcomes[i]==ClaimArbiter.Outcome.INVALID){
+                p.penalty();
+            }
+            p.checkDone();
+            if(event.shouldCommit()){
+                event.player = claim.player;
+                event.cards = Arrays.toString(claim.cards);
+                event.outcome = outcomes[i].name();
+                event.latency = latency;
+                event.batchSize = batch.size();
+                event.commit();
+            }
+        }
+        if(accepted && placeCardsOnTable()==0) tableChanged();//cards were removed but none placed
     } 
-    public void removeTokens (Player p,int[] cards){
+    public void removeTokens (int[] slots){
         
-            synchronized(table.tableLock){
-                for(int i=0;i<cards.length;i++){
-                    if(cards[i]!=0){
-                        table.removeToken(p.id,table.cardToSlot[cards[i]]);
-                        p.tokenCounter--;
-                        int size=table.tokensPlaced[table.cardToSlot[cards[i]]].size();
-                        for(int j=0;j<size;j++){//check if there are more tokens to remove
-                            Player toRemoveToken=getPlayer(table.tokensPlaced[table.cardToSlot[cards[i]]].get(0));
-                            table.removeToken(table.tokensPlaced[table.cardToSlot[cards[i]]].get(0),table.cardToSlot[cards[i]]);
-                            toRemoveToken.tokenCounter--;
-                            
-                       }
-                        
-                    }
+            for(int slot:slots){
+                for(int player:table.tokens.playersOn(slot)){//the tokens of every player on the slot
+                    table.removeToken(player,slot);
                 }
             }
         
     }   
     private void restartTimerDisplayAfterSet() {//we did
-        reshuffleTime=System.currentTimeMillis()+env.config.turnTimeoutMillis;
-        long remainingTime = reshuffleTime - System.currentTimeMillis();
+        reshuffleTime=env.clock.currentTimeMillis()+env.config.turnTimeoutMillis;
+        long remainingTime = reshuffleTime - env.clock.currentTimeMillis();
         env.ui.setCountdown(remainingTime, false);
         
     }  
-    void add_player_with_token(Player e)
+    /**
+     * Submits a claim for the dealer to check.
+     * @param claim - the claim.
+     */
+    void submitClaim(Claim claim)
     {
-        synchronized(players_needed_checking){
-            players_needed_checking.add(e);
-        }
+        claims.add(claim);
     }  
     protected Player getPlayer(int id){
         for(Player p:players){
@@ -0,0 +1,79 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class holds the card ids left in the dealer's deck. Cards are drawn uniformly at random by a lazy
+ * Fisher-Yates shuffle: each draw swaps a random card into the last position, so only drawn positions are shuffled.
+ *
+ * @inv 0 <= size <= cards.length
+ */
+public class Deck {
+
+    /**
+     * The cards in the deck are cards[0..size-1] (in no particular order).
+     */
+    private final int[] cards;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * Creates a full deck.
+     *
+     * @param deckSize - the total number of cards in the game.
+     */
+    public Deck(int deckSize) {
+        cards = new int[deckSize];
+        Arrays.setAll(cards, i -> i);
+        size = deckSize;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff there are no cards in the deck.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes a random card from the deck (O(1)).
+     *
+     * @return - the card id drawn.
+     * @pre - the deck is not empty.
+     */
+    public int draw() {
+        int i = ThreadLocalRandom.current().nextInt(size);
+        int card = cards[i];
+        cards[i] = cards[--size];
+        cards[size] = card;
+        return card;
+    }
+
+    /**
+     * Returns a card to the deck (O(1)).
+     *
+     * @param card - the card id.
+     * @pre - the card is not in the deck.
+     */
+    public void add(int card) {
+        cards[size++] = card;
+    }
+
+    /**
+     * @return - a copy of the card ids in the deck.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(cards, size);
+    }
+}
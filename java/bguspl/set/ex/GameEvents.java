@@ -0,0 +1,93 @@
+package bguspl.set.ex;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder events of the game. Callers create an event and fill it only if it is enabled
+ * (shouldCommit), so nothing is recorded or allocated on the heap when no recording is running.
+ */
+final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    @Name("bguspl.set.ClaimCheck")
+    @Label("Claim Check")
+    @Description("The dealer's verdict on a claim, lasting from the verdict until the set is removed and scored")
+    @Category({"Set Game", "Dealer"})
+    @StackTrace(false)
+    static final class ClaimCheck extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Cards")
+        String cards;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Claim Latency")
+        @Description("The time from the claim to the verdict")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Batch Size")
+        int batchSize;
+    }
+
+    @Name("bguspl.set.CardsMoved")
+    @Label("Cards Moved")
+    @Description("The dealer moving cards between the deck and the table")
+    @Category({"Set Game", "Dealer"})
+    @StackTrace(false)
+    static final class CardsMoved extends Event {
+        @Label("To Table")
+        @Description("True for dealing cards to the table, false for returning them to the deck (reshuffle)")
+        boolean toTable;
+
+        @Label("Cards")
+        int cards;
+
+        @Label("Cards Left In Deck")
+        int deckSize;
+    }
+
+    @Name("bguspl.set.Freeze")
+    @Label("Player Freeze")
+    @Description("A player frozen for a point or a penalty, lasting until the player may act again")
+    @Category({"Set Game", "Player"})
+    @StackTrace(false)
+    static final class Freeze extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Penalty")
+        boolean penalty;
+
+        @Label("Freeze Time")
+        @Timespan(Timespan.MILLISECONDS)
+        long freezeMillis;
+    }
+
+    @Name("bguspl.set.TokenChange")
+    @Label("Token Change")
+    @Description("A player token placed on or removed from a table slot")
+    @Category({"Set Game", "Table"})
+    @StackTrace(false)
+    static final class TokenChange extends Event {
+        @Label("Player")
+        int player;
+
+        @Label("Slot")
+        int slot;
+
+        @Label("Placed")
+        boolean placed;
+    }
+}
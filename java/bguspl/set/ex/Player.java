@@ -2,7 +2,13 @@ package bguspl.set.ex;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import bguspl.set.Env;
-import java.util.Random;
+import bguspl.set.GameJournal;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class manages the players' threads and data
@@ -14,7 +20,6 @@ public class Player implements Runnable {
    // protected int[] actions;
     protected BlockingQueue<Integer> keys;
     protected Dealer dealer;
-    protected int tokenCounter=0;
     /**
      * The game environment object.
      */
@@ -33,12 +38,12 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
      */
-    private Thread aiThread;
+    private volatile Thread aiThread;
 
     /**
      * True iff the player is human (not a computer player).
@@ -55,9 +60,60 @@ public class Player implements Runnable {
      */
     private int score;
 
-    private Boolean frozen;
+    /**
+     * True iff the player is frozen (after a point or a penalty) until frozenUntil.
+     */
+    private boolean frozen;
 
-    private long freezetime;
+    /**
+     * The game time (env.clock) at which the current freeze ends.
+     */
+    private long frozenUntil;
+
+    /**
+     * The periodic update of the freeze time display (null if none).
+     */
+    private ScheduledFuture<?> freezeDisplay;
+
+    /**
+     * The flight recorder event of the current freeze (null if the player is not frozen or no recording runs).
+     */
+    private GameEvents.Freeze freezeEvent;
+
+    /**
+     * Ends freezes and refreshes their display for the players of all games, so frozen players do not hold a thread.
+     */
+    private static final ScheduledExecutorService freezeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "freeze-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Guards the check and freeze state (a lock rather than the monitor, so virtual threads are not pinned).
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the dealer is done with the set the player submitted.
+     */
+    private final Condition checked = lock.newCondition();
+
+    /**
+     * Signalled when the player may become able to act (the game resumed, a freeze ended, a check is done or the
+     * cards on the table changed).
+     */
+    private final Condition canAct = lock.newCondition();
+
+    /**
+     * The number of times the dealer reported a state change (guarded by lock).
+     */
+    private long stateChanges;
+
+    /**
+     * True iff the player submitted a set and the dealer did not check it yet.
+     */
+    private boolean waitingForCheck;
 
     /**
      * The class constructor.
@@ -75,8 +131,6 @@ public class Player implements Runnable {
         this.human = human;
         this.dealer = dealer;
         this.keys= new LinkedBlockingQueue<Integer>(3);
-        frozen = false;
-        freezetime = 0;
     }
     /**
      * The main player thread of each player starts here (main loop for the player thread).
@@ -88,73 +142,205 @@ public class Player implements Runnable {
         if (!human) 
             createArtificialIntelligence();
         while (!terminate) {
-            if(dealer.gameOn){
-
-                try {
-                    if(freezetime>0){
-                        treat_forzen_state();
-                    }
-                    int s = keys.take();//take out of the queue
-                    if(table.tokensPlaced[s].contains(id)){
-                        table.removeToken(id,s);
-                        tokenCounter--;
-                    }
-                    else if(tokenCounter<3&&dealer.gameOn&&!table.EmptySlots.contains(s)){
-                        table.placeToken(id,s);
-                        tokenCounter++;
-                        if(tokenCounter==3){//add to the list of players that need to be checked
-                            dealer.add_player_with_token(this);
-                            synchronized(this){
-                                wait();
-                            }
-                        }
+            try {
+                awaitCanAct(false);//park while the game is paused or the player is frozen
+                int s = keys.take();//take out of the queue
+                if(!table.removeToken(id,s)&&dealer.gameOn&&table.placeToken(id,s)){
+                    if(table.tokens.count(id)==env.config.featureSize){//add to the list of players that need to be checked
+                        awaitCheck();
                     }
-                } catch (InterruptedException e) {}             
-            }
+                }
+            } catch (InterruptedException e) {}             
         }      
         if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
-    private void treat_forzen_state()//added function fot taking care of the frozen state
-    {
-        synchronized(this){
-            while(frozen)
-            {
-                env.ui.setFreeze(id, freezetime);
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {}
-                freezetime -= 1000;
-                if(freezetime == 0){
-                    frozen = false;
-                    env.ui.setFreeze(id, 0);
-                }
+    /**
+     * Submits the player's set to the dealer and waits until the dealer checked it.
+     */
+    private void awaitCheck() throws InterruptedException {
+        Claim claim = table.claim(id);
+        if (claim == null) return;//a selected card or token was removed meanwhile
+        lock.lock();
+        try {
+            waitingForCheck = true;
+        } finally {
+            lock.unlock();
+        }
+        dealer.submitClaim(claim);
+        lock.lock();
+        try {
+            while (waitingForCheck && !terminate)
+                checked.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by the dealer when it is done with the set the player submitted (checked or discarded).
+     */
+    void checkDone() {
+        lock.lock();
+        try {
+            waitingForCheck = false;
+            checked.signalAll();
+            canAct.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks the calling thread until the game is on and the player is not frozen and, for the computer player thread,
+     * until the player is not waiting for a check (so it does not generate key presses that would only be dropped).
+     *
+     * @param computer - true iff called by the computer player thread.
+     */
+    private void awaitCanAct(boolean computer) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!terminate && !(dealer.gameOn && !frozen && (!computer || !waitingForCheck)))
+                canAct.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called when the game state changed in a way that may let the player act (e.g. the dealer resumed the game or
+     * placed cards).
+     */
+    void stateChanged() {
+        lock.lock();
+        try {
+            ++stateChanges;
+            canAct.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return - the number of state changes reported so far, to pass to awaitStateChange.
+     */
+    private long stateChanges() {
+        lock.lock();
+        try {
+            return stateChanges;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks the computer player thread until the dealer reports a state change, used when the strategy has nothing
+     * to press (e.g. there is no set on the table) so the thread does not spin on the table until it changes.
+     *
+     * @param seen - the number of state changes when the strategy was last asked.
+     */
+    private void awaitStateChange(long seen) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!terminate && stateChanges == seen)
+                canAct.await();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Freezes the player until the given amount of game time passed. The shared scheduler refreshes the freeze display
+     * every config.freezeRefreshMillis and releases the player exactly at the deadline.
+     *
+     * @param millis  - the freeze time in milliseconds.
+     * @param penalty - true iff the player is frozen for a penalty (false for a point).
+     */
+    private void freeze(long millis, boolean penalty) {
+        if (millis <= 0) return;
+        env.metrics.frozen();
+        lock.lock();
+        try {
+            frozen = true;
+            frozenUntil = env.clock.currentTimeMillis() + millis;
+            GameEvents.Freeze event = new GameEvents.Freeze();
+            if (event.isEnabled()) {
+                if (freezeEvent != null) freezeEvent.commit();//the previous freeze was extended
+                event.begin();
+                event.player = id;
+                event.penalty = penalty;
+                event.freezeMillis = millis;
+                freezeEvent = event;
+            }
+            env.ui.setFreeze(id, millis);
+            if (freezeDisplay != null) freezeDisplay.cancel(false);
+            long refresh = env.clock.toRealNanos(env.config.freezeRefreshMillis);
+            freezeDisplay = refresh > 0 && !env.config.headless
+                    ? freezeScheduler.scheduleAtFixedRate(this::refreshFreeze, refresh, refresh, TimeUnit.NANOSECONDS)
+                    : null;
+            freezeScheduler.schedule(this::unfreeze, env.clock.toRealNanos(millis), TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshFreeze() {
+        lock.lock();
+        try {
+            long remaining = frozenUntil - env.clock.currentTimeMillis();
+            if (frozen && remaining > 0)
+                env.ui.setFreeze(id, remaining);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void unfreeze() {
+        lock.lock();
+        try {
+            if (!frozen) return;
+            long remaining = frozenUntil - env.clock.currentTimeMillis();
+            if (remaining > 0) {//the freeze was extended meanwhile
+                freezeScheduler.schedule(this::unfreeze, env.clock.toRealNanos(remaining), TimeUnit.NANOSECONDS);
+                return;
             }
+            frozen = false;
+            if (freezeEvent != null) freezeEvent.commit();
+            freezeEvent = null;
+            if (freezeDisplay != null) freezeDisplay.cancel(false);
+            freezeDisplay = null;
+            env.ui.setFreeze(id, 0);
+            canAct.signalAll();
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * key presses chosen by the player's strategy. If the queue of key presses is full, the thread waits until it is
+     * not full.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)       
-        aiThread = new Thread(() -> {
+        ComputerStrategy strategy = ComputerStrategy.create(env, table, id);
+        aiThread = env.threadFactory.newThread(() -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {   
                 try {
-                    if(dealer.gameOn){
-                        Random rand = new Random();
-                        int press = (int)rand.nextInt(env.config.tableSize) ;
-                        if(!table.EmptySlots.contains(press))
-                            keys.put(press);
-                    }
+                    awaitCanAct(true);//park until the player can use more key presses
+                    long seen = stateChanges();
+                    int[] presses = strategy.nextPresses();
+                    if (presses.length == 0)
+                        awaitStateChange(seen);//nothing to press until the table changes
+                    for(int press : presses)
+                        keys.put(press);
                 } catch (InterruptedException e) {
                 }
             }
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
-        }, "computer-" + id);
+        });
+        aiThread.setName("computer-" + id);
         aiThread.start();
     }
     /**
@@ -164,16 +350,27 @@ public class Player implements Runnable {
         if (!terminate) {
             terminate = true;
             dealer.gameOn = false;
-            if (!human){
+            lock.lock();
+            try {
+                if (freezeDisplay != null) freezeDisplay.cancel(false);
+            } finally {
+                lock.unlock();
+            }
+            //the threads are only known once they run - a thread that did not run yet sees terminate and exits
+            Thread ai = aiThread;
+            if (!human && ai != null){
                 try {
-                    aiThread.interrupt();
-                    aiThread.join();
+                    ai.interrupt();
+                    ai.join();
                 } catch (InterruptedException ignored) {}
             }      
-            try {
-                playerThread.interrupt();
-                playerThread.join();
-            } catch (InterruptedException e) {}
+            Thread player = playerThread;
+            if (player != null) {
+                try {
+                    player.interrupt();
+                    player.join();
+                } catch (InterruptedException e) {}
+            }
         }   
     }
 
@@ -184,9 +381,13 @@ public class Player implements Runnable {
      */
     public void keyPressed(int slot) {
             try {
-                if(!table.EmptySlots.contains(slot))
+                if(table.hasCard(slot))
                     keys.add(slot);
-            } catch (IllegalStateException e) {}
+                else
+                    env.metrics.keyDropped();
+            } catch (IllegalStateException e) {
+                env.metrics.keyDropped();//the input queue is full
+            }
     }
 
     /**
@@ -197,22 +398,18 @@ public class Player implements Runnable {
      */
     public void point() {
         env.ui.setScore(id, ++score);
+        env.metrics.point();
+        env.journal.record(GameJournal.TYPE_SCORE, id, -1, -1, score);
         keys.clear();
-        tokenCounter=0;
-        synchronized(this){
-            frozen = true;
-            freezetime = env.config.pointFreezeMillis;
-        }
+        freeze(env.config.pointFreezeMillis, false);
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
     public void penalty() {//we did
-        synchronized(this){
-            frozen = true;
-            freezetime = env.config.penaltyFreezeMillis;
-        }  
+        env.metrics.penalty();
+        freeze(env.config.penaltyFreezeMillis, true);
     }
 
     public int score() {
@@ -220,19 +417,6 @@ public class Player implements Runnable {
     }
     //*******************assist functions******************************************************************* */
    
-    public int[] getPlayerTokens(){
-        int[] tokens = new int[3];
-        int place=0;//place in the array
-        for(int i=0;i<table.tokensPlaced.length&& place<3;i++){
-            for(int token:table.tokensPlaced[i]){
-                if (token==id&&table.slotToCard[i]!=null){
-                    tokens[place]=table.slotToCard[i];
-                    place++;
-                }
-            }
-        }
-        return tokens;
-    }
     public Thread getPlayerThread(){
         return playerThread;
     }
@@ -0,0 +1,32 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer strategy that presses a random slot holding a card.
+ */
+public class RandomStrategy implements ComputerStrategy {
+
+    private static final int[] NONE = new int[0];
+
+    private final Env env;
+    private final Table table;
+
+    public RandomStrategy(Env env, Table table) {
+        this.env = env;
+        this.table = table;
+    }
+
+    @Override
+    public int[] nextPresses() {
+        //probe from a random slot, so an empty slot does not cost a round trip
+        int start = ThreadLocalRandom.current().nextInt(env.config.tableSize);
+        for (int i = 0; i < env.config.tableSize; i++) {
+            int press = (start + i) % env.config.tableSize;
+            if (table.hasCard(press)) return new int[]{press};
+        }
+        return NONE;
+    }
+}
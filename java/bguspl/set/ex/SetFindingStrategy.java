@@ -0,0 +1,63 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A computer strategy that finds a legal set on the table and selects it after a human-like reaction time
+ * (uniformly between half and one and a half times config.computerReactionMillis).
+ */
+public class SetFindingStrategy implements ComputerStrategy {
+
+    private static final int[] NONE = new int[0];
+
+    private final Env env;
+    private final Table table;
+    private final int player;
+
+    public SetFindingStrategy(Env env, Table table, int player) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+    }
+
+    @Override
+    public int[] nextPresses() throws InterruptedException {
+        long reaction = env.config.computerReactionMillis;
+        if (reaction > 0)
+            env.clock.sleep(reaction / 2 + ThreadLocalRandom.current().nextLong(reaction + 1));
+
+        int[] slotToCard = table.cardsSnapshot();
+        int[] cards = new int[slotToCard.length];
+        int count = 0;
+        for (int card : slotToCard)
+            if (card >= 0)
+                cards[count++] = card;
+        int[] onTable = new int[count];
+        System.arraycopy(cards, 0, onTable, 0, count);
+
+        List<int[]> sets = env.util.findSets(onTable, Integer.MAX_VALUE);
+        if (sets.isEmpty()) return NONE;
+        int[] set = sets.get(ThreadLocalRandom.current().nextInt(sets.size()));
+
+        // toggle off the tokens outside the chosen set, then place the missing ones
+        boolean[] chosen = new boolean[slotToCard.length];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            for (int card : set)
+                if (slotToCard[slot] == card)
+                    chosen[slot] = true;
+        int[] presses = new int[slotToCard.length];
+        int pressCount = 0;
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (table.tokens.hasToken(player, slot) && !chosen[slot])
+                presses[pressCount++] = slot;
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            if (chosen[slot] && !table.tokens.hasToken(player, slot))
+                presses[pressCount++] = slot;
+        int[] result = new int[pressCount];
+        System.arraycopy(presses, 0, result, 0, pressCount);
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.Arrays;
+
+/**
+ * This class tracks whether a legal set still exists among the cards left in the game (deck and table), updated
+ * incrementally as cards leave the game.
+ *
+ * @inv sets == the number of legal sets made of live cards (when sets are made of 3 cards)
+ */
+public class SetIndex {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * True iff the card is still in the game (in the deck or on the table).
+     */
+    private final boolean[] live;
+
+    /**
+     * The live cards, densely packed (the order is arbitrary).
+     */
+    private final int[] liveCards;
+
+    /**
+     * The index of each live card in liveCards.
+     */
+    private final int[] position;
+
+    /**
+     * The number of live cards.
+     */
+    private int size;
+
+    /**
+     * The number of legal sets made of live cards.
+     */
+    private int sets;
+
+    /**
+     * True iff sets are made of 3 cards, so they can be counted through Util::completeSet.
+     */
+    private final boolean incremental;
+
+    public SetIndex(Env env) {
+        this.env = env;
+        live = new boolean[env.config.deckSize];
+        liveCards = new int[env.config.deckSize];
+        position = new int[env.config.deckSize];
+        incremental = env.config.deckSize < 2 || env.util.completeSet(0, 1) >= 0;
+        for (int card = 0; card < env.config.deckSize; ++card)
+            add(card);
+    }
+
+    /**
+     * Returns a card to the game (O(n)).
+     *
+     * @param card - the card id.
+     */
+    public synchronized void add(int card) {
+        if (live[card]) return;
+        if (incremental) {
+            for (int i = 0; i < size; ++i) {
+                int other = liveCards[i];
+                int third = env.util.completeSet(card, other);
+                if (live[third] && third > other) ++sets; // each new set is seen from both of its other cards
+            }
+        }
+        live[card] = true;
+        position[card] = size;
+        liveCards[size++] = card;
+    }
+
+    /**
+     * Removes a card from the game (O(n)).
+     *
+     * @param card - the card id.
+     */
+    public synchronized void remove(int card) {
+        if (!live[card]) return;
+        live[card] = false;
+        int last = liveCards[--size];
+        liveCards[position[card]] = last;
+        position[last] = position[card];
+        if (incremental) {
+            for (int i = 0; i < size; ++i) {
+                int other = liveCards[i];
+                int third = env.util.completeSet(card, other);
+                if (live[third] && third > other) --sets;
+            }
+        }
+    }
+
+    /**
+     * Checks if a legal set can still be formed from the cards left in the game (O(1) for sets of 3 cards).
+     *
+     * @return - true iff at least one legal set exists.
+     */
+    public synchronized boolean hasSets() {
+        if (incremental) return sets > 0;
+        return !env.util.findSets(Arrays.copyOf(liveCards, size), 1).isEmpty();
+    }
+}
@@ -1,10 +1,12 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.GameJournal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -15,9 +17,13 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 public class Table {
     //added fields:
-    protected ArrayList<Integer> [] tokensPlaced;
+    protected final TokenBoard tokens;
     protected ArrayList<Integer> EmptySlots;
-    protected Object tableLock = new Object();
+
+    /**
+     * Paces the display of card changes, so the table itself is never blocked by the table delay.
+     */
+    protected final TablePacer pacer;
  
    
    
@@ -37,6 +43,11 @@ public class Table {
      */
     protected final Integer[] cardToSlot; // slot per card (if any)
 
+    /**
+     * Incremented whenever a card is placed or removed, so claims made since can be validated cheaply.
+     */
+    private long version;
+
     /**
      * Constructor for testing.
      *
@@ -49,10 +60,8 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        this.tokensPlaced = new ArrayList[env.config.tableSize];//added
-        for (int i = 0; i < env.config.tableSize; i++){
-            tokensPlaced[i] = new ArrayList<Integer>();
-        }
+        this.tokens = new TokenBoard(env.config.tableSize, env.config.players, env.config.featureSize);//added
+        this.pacer = new TablePacer(env.config.headless ? 0 : env.config.tableDelayMillis);
         this.EmptySlots = new ArrayList<Integer> ();//added
         //fill EmptySlots with empty slots
         for (int i = 0; i < env.config.tableSize; i++){
@@ -74,7 +83,7 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
+        int[] deck = Arrays.stream(slotToCard).filter(Objects::nonNull).mapToInt(Integer::intValue).toArray();
         env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
@@ -83,17 +92,73 @@ public class Table {
         });
     }
 
+    /**
+     * Copies the cards currently on the table.
+     *
+     * @return - the card in each slot (-1 for an empty slot).
+     */
+    public int[] cardsSnapshot() {
+        return locked(() -> {
+            int[] cards = new int[slotToCard.length];
+            for (int slot = 0; slot < slotToCard.length; slot++)
+                cards[slot] = slotToCard[slot] == null ? -1 : slotToCard[slot];
+            return cards;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the slots a player selected and the cards in them.
+     *
+     * @param player - the player making the claim.
+     * @return - the claim, or null if the player no longer has a full selection (a set taken meanwhile cleared
+     *           some of its tokens) or one of the selected slots no longer holds a card.
+     */
+    public Claim claim(int player) {
+        return locked(() -> {
+            int[] slots = tokens.slotsOf(player);
+            if (slots.length != env.config.featureSize) return null;
+            int[] cards = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                Integer card = slotToCard[slots[i]];
+                if (card == null) return null;
+                cards[i] = card;
+            }
+            env.journal.recordClaim(player, slots, cards, version);
+            return new Claim(player, slots, cards, version, System.nanoTime());
+        });
+    }
+
+    /**
+     * Checks that a claim still describes the table: its cards are in its slots and hold the player's tokens.
+     *
+     * @param claim - the claim.
+     * @return - true iff the claim is not stale.
+     */
+    public boolean isCurrent(Claim claim) {
+        return locked(() -> {
+            for (int i = 0; i < claim.slots.length; i++) {
+                int slot = claim.slots[i];
+                if (!tokens.hasToken(claim.player, slot)) return false;
+                //cards were placed or removed since the claim - compare the claimed ones
+                if (version != claim.version && (slotToCard[slot] == null || slotToCard[slot] != claim.cards[i])) return false;
+            }
+            return true;
+        });
+    }
+
     /**
      * Count the number of cards currently on the table.
      *
      * @return - the number of cards on the table.
      */
-    public synchronized int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
-        return cards;
+    public int countCards() {
+        return locked(() -> {
+            int cards = 0;
+            for (Integer card : slotToCard)
+                if (card != null)
+                    ++cards;
+            return cards;
+        });
     }
 
     /**
@@ -103,42 +168,95 @@ public class Table {
      *
      * @post - the card placed is on the table, in the assigned slot.
      */
-    public synchronized void placeCard(int card, int slot) {//we did
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
-        EmptySlots.remove((Object)slot);//******* */
-        env.ui.placeCard(card,slot);//changed
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+    public void placeCard(int card, int slot) {//we did
+        locked(() -> {
+            cardToSlot[card] = slot;
+            slotToCard[slot] = card;
+            EmptySlots.remove((Object)slot);//******* */
+            ++version;
+            tokens.open(slot);
+            env.journal.record(GameJournal.TYPE_CARD_PLACED, -1, slot, card, version);
+            pacer.paced(() -> env.ui.placeCard(card, slot));//changed
+        });
     }
 
     /**
      * Removes a card from a grid slot on the table.
      * @param slot - the slot from which to remove the card.
      */
-    public synchronized void removeCard(int slot) {//we did
-        int cardRemoved = slotToCard[slot];
-        cardToSlot[cardRemoved] = null;
-        slotToCard[slot] = null;
-        EmptySlots.add(slot);
-        env.ui.removeCard(slot);
-        //remove token from slot
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+    public void removeCard(int slot) {//we did
+        locked(() -> {
+            tokens.close(slot);
+            int cardRemoved = slotToCard[slot];
+            cardToSlot[cardRemoved] = null;
+            slotToCard[slot] = null;
+            EmptySlots.add(slot);
+            ++version;
+            env.journal.record(GameJournal.TYPE_CARD_REMOVED, -1, slot, cardRemoved, version);
+            pacer.paced(() -> env.ui.removeCard(slot));
+        });
+    }
+
+    /**
+     * Runs a critical section under the table lock, recording the lock wait and hold times. A section entered
+     * while the lock is already held is part of the enclosing one, so it is not recorded again.
+     *
+     * @param section - the critical section.
+     * @return        - the result of the section.
+     */
+    <T> T locked(Supplier<T> section) {
+        if (Thread.holdsLock(this)) return section.get();
+        long requested = System.nanoTime();
+        synchronized (this) {
+            long acquired = env.metrics.tableLocked(requested);
+            try {
+                return section.get();
+            } finally {
+                env.metrics.tableUnlocked(acquired);
+            }
+        }
+    }
+
+    /**
+     * Runs a critical section under the table lock, recording the lock wait and hold times.
+     *
+     * @param section - the critical section.
+     */
+    void locked(Runnable section) {
+        locked(() -> {
+            section.run();
+            return null;
+        });
+    }
+
+    /**
+     * Checks if a slot holds a card (i.e. tokens may be placed on it), without locking the table.
+     * @param slot - the slot.
+     * @return     - true iff the slot holds a card.
+     */
+    public boolean hasCard(int slot) {
+        return tokens.isOpen(slot);
     }
 
     /**
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return       - true iff a token was successfully placed.
      */
-    public synchronized void placeToken(int player, int slot) {//we did
-        if(!EmptySlots.contains(slot)){
-            tokensPlaced[slot].add(player);
-            env.ui.placeToken(player, slot);
+    public boolean placeToken(int player, int slot) {//we did
+        if (!tokens.place(player, slot))
+            return false;
+        pacer.immediate(() -> env.ui.placeToken(player, slot));
+        if (!tokens.isOpen(slot)) {
+            //the card was removed meanwhile - roll the token back
+            tokens.remove(player, slot);
+            pacer.immediate(() -> env.ui.removeToken(player, slot));
+            return false;
         }
+        recordTokenChange(player, slot, true);
+        env.journal.record(GameJournal.TYPE_TOKEN_PLACED, player, slot, -1, 0);
+        return true;
     }
 
     /**
@@ -147,12 +265,22 @@ public class Table {
      * @param slot   - the slot from which to remove the token.
      * @return       - true iff a token was successfully removed.
      */
-    public synchronized boolean removeToken(int player, int slot) {//we did
-        if (!tokensPlaced[slot].contains(player))
+    public boolean removeToken(int player, int slot) {//we did
+        if (!tokens.remove(player, slot))
             return false;
-        
-        tokensPlaced[slot].remove((Object)player);
-        env.ui.removeToken(player, slot);
+        pacer.immediate(() -> env.ui.removeToken(player, slot));
+        recordTokenChange(player, slot, false);
+        env.journal.record(GameJournal.TYPE_TOKEN_REMOVED, player, slot, -1, 0);
         return true;
     }
+
+    private static void recordTokenChange(int player, int slot, boolean placed) {
+        GameEvents.TokenChange event = new GameEvents.TokenChange();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.slot = slot;
+            event.placed = placed;
+            event.commit();
+        }
+    }
 }
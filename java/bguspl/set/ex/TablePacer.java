@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class paces the display of table changes: card updates are shown config.tableDelayMillis apart, while the
+ * table data structures themselves are updated immediately.
+ *
+ * @inv updates are displayed in the order they were submitted
+ */
+public class TablePacer {
+
+    /**
+     * The delay between two consecutive card updates (in nanoseconds).
+     */
+    private final long delayNanos;
+
+    /**
+     * The thread displaying the updates in order (null if there is no delay, in which case updates run inline).
+     */
+    private final ExecutorService display;
+
+    /**
+     * The time (System.nanoTime) at which the next card update may be displayed.
+     */
+    private long nextFrame = System.nanoTime();
+
+    /**
+     * @param delayMillis - the delay between two consecutive card updates (in milliseconds).
+     */
+    public TablePacer(long delayMillis) {
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        this.display = delayNanos == 0 ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "table-pacer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Displays a card update, once the previous card update was shown for the table delay.
+     * @param update - the user interface update.
+     */
+    public synchronized void paced(Runnable update) {
+        if (display == null) {
+            update.run();
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextFrame - now < 0) nextFrame = now;
+        long due = nextFrame;
+        nextFrame += delayNanos;
+        display.execute(() -> {
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime())
+                LockSupport.parkNanos(wait);
+            update.run();
+        });
+    }
+
+    /**
+     * Displays an update as soon as the updates submitted before it were displayed.
+     * @param update - the user interface update.
+     */
+    public synchronized void immediate(Runnable update) {
+        if (display == null) update.run();
+        else display.execute(update);
+    }
+
+    /**
+     * Stops accepting updates (pending updates are still displayed).
+     */
+    public void shutdown() {
+        if (display != null) display.shutdown();
+    }
+}
@@ -0,0 +1,204 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class holds the players' tokens on the table grid as a lock-free bitmask of player ids per slot,
+ * together with a per-player index of the slots each player selected.
+ *
+ * @inv a token is only placed on an open slot (i.e. a slot holding a card)
+ * @inv a player has at most capacity tokens, and its selection holds exactly the slots with its tokens
+ */
+public class TokenBoard {
+
+    /**
+     * The number of slots on the table grid.
+     */
+    private final int slots;
+
+    /**
+     * The number of 64 bit words holding the tokens of a single slot.
+     */
+    private final int words;
+
+    /**
+     * Bit (player % 64) of tokens[slot * words + player / 64] is set iff the player has a token on the slot.
+     */
+    private final AtomicLongArray tokens;
+
+    /**
+     * open[slot] == 1 iff tokens may be placed on the slot (i.e. it holds a card).
+     */
+    private final AtomicIntegerArray open;
+
+    /**
+     * The maximal number of tokens a single player may have on the table.
+     */
+    private final int capacity;
+
+    /**
+     * selections[player] holds the slots on which the player has tokens, in placement order.
+     */
+    private final Selection[] selections;
+
+    /**
+     * The slots a single player has tokens on. Guarded by its own monitor, so that players never contend.
+     */
+    private static final class Selection {
+        final int[] slots;
+        int count;
+
+        Selection(int capacity) {
+            slots = new int[capacity];
+        }
+
+        void add(int slot) {
+            slots[count++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < count; ++i)
+                if (slots[i] == slot) {
+                    slots[i] = slots[--count];
+                    return;
+                }
+        }
+    }
+
+    /**
+     * @param slots    - the number of slots on the table grid.
+     * @param players  - the number of players in the game.
+     * @param capacity - the maximal number of tokens a single player may have on the table.
+     */
+    public TokenBoard(int slots, int players, int capacity) {
+        this.slots = slots;
+        this.words = Math.max(1, (players + 63) >>> 6);
+        this.tokens = new AtomicLongArray(slots * words);
+        this.open = new AtomicIntegerArray(slots);
+        this.capacity = capacity;
+        this.selections = new Selection[players];
+        for (int player = 0; player < players; ++player)
+            selections[player] = new Selection(capacity);
+    }
+
+    private int index(int player, int slot) {
+        return slot * words + (player >>> 6);
+    }
+
+    /**
+     * Allows tokens to be placed on a slot.
+     * @param slot - the slot.
+     */
+    public void open(int slot) {
+        open.set(slot, 1);
+    }
+
+    /**
+     * Prevents new tokens from being placed on a slot (tokens already placed stay until removed).
+     * @param slot - the slot.
+     */
+    public void close(int slot) {
+        open.set(slot, 0);
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - true iff tokens may be placed on the slot.
+     */
+    public boolean isOpen(int slot) {
+        return open.get(slot) == 1;
+    }
+
+    /**
+     * Places a player token on a slot.
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot on which to place the token.
+     * @return       - true iff the token was placed (the slot is open, the player had no token on it and
+     *                 the player has less than capacity tokens).
+     *
+     * @post - if the slot was closed concurrently, the caller must roll the token back (see isOpen).
+     */
+    public boolean place(int player, int slot) {
+        if (!isOpen(slot)) return false;
+        Selection selection = selections[player];
+        synchronized (selection) {
+            if (selection.count == capacity) return false;
+            long bit = 1L << player;
+            if ((tokens.getAndAccumulate(index(player, slot), bit, (word, b) -> word | b) & bit) != 0)
+                return false;
+            selection.add(slot);
+            return true;
+        }
+    }
+
+    /**
+     * Removes a player token from a slot.
+     * @param player - the player the token belongs to.
+     * @param slot   - the slot from which to remove the token.
+     * @return       - true iff the player had a token on the slot.
+     */
+    public boolean remove(int player, int slot) {
+        Selection selection = selections[player];
+        synchronized (selection) {
+            long bit = 1L << player;
+            if ((tokens.getAndAccumulate(index(player, slot), bit, (word, b) -> word & ~b) & bit) == 0)
+                return false;
+            selection.remove(slot);
+            return true;
+        }
+    }
+
+    /**
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (tokens.get(index(player, slot)) & (1L << player)) != 0;
+    }
+
+    /**
+     * @param player - the player.
+     * @return - the number of tokens the player has on the table.
+     */
+    public int count(int player) {
+        Selection selection = selections[player];
+        synchronized (selection) {
+            return selection.count;
+        }
+    }
+
+    /**
+     * Returns the slots on which a player has tokens, without scanning the table.
+     * @param player - the player.
+     * @return - the slots, in placement order (a removed slot is replaced by the last placed one).
+     */
+    public int[] slotsOf(int player) {
+        Selection selection = selections[player];
+        synchronized (selection) {
+            int[] result = new int[selection.count];
+            System.arraycopy(selection.slots, 0, result, 0, selection.count);
+            return result;
+        }
+    }
+
+    /**
+     * Returns the players that have tokens on a slot.
+     * @param slot - the slot.
+     * @return - the player ids, in ascending order.
+     */
+    public int[] playersOn(int slot) {
+        long[] snapshot = new long[words];
+        int count = 0;
+        for (int w = 0; w < words; ++w) {
+            snapshot[w] = tokens.get(slot * words + w);
+            count += Long.bitCount(snapshot[w]);
+        }
+        int[] players = new int[count];
+        for (int w = 0, i = 0; w < words; ++w)
+            for (long word = snapshot[w]; word != 0; word &= word - 1)
+                players[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+        return players;
+    }
+}